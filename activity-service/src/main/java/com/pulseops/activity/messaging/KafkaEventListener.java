@@ -41,8 +41,12 @@ public class KafkaEventListener {
         }
 
         activityService.processEvent(event)
-                .doOnSuccess(activity -> log.info("[traceId={}] Activity stored: id={}, type={}", 
-                        traceId, activity.getId(), activity.getType()))
+                .doOnSuccess(activity -> {
+                    if (activity != null) {
+                        log.info("[traceId={}] Activity stored: id={}, type={}",
+                                traceId, activity.getId(), activity.getType());
+                    }
+                })
                 .doOnError(error -> log.error("[traceId={}] Failed to process event: {}", 
                         traceId, error.getMessage(), error))
                 .subscribe();
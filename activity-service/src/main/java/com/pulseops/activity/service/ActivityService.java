@@ -5,10 +5,13 @@ import com.pulseops.activity.model.ActivityItem;
 import com.pulseops.activity.repository.ActivityRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -17,17 +20,28 @@ public class ActivityService {
     private final ActivityRepository activityRepository;
     private final SseEmitterService sseEmitterService;
 
+    /**
+     * Stores the event and pushes it to SSE subscribers. Kafka delivers at least once, so the activity is keyed by
+     * the event id: a redelivered event completes empty instead of being stored and pushed a second time.
+     */
     public Mono<ActivityItem> processEvent(EventEnvelope event) {
         ActivityItem activity = ActivityItem.builder()
+                .id(event.getEventId())
                 .type(event.getType())
                 .incidentId(event.getAggregateId())
+                // Auditing only fills @CreatedDate for new (id-less) documents
+                .occurredAt(Instant.now())
                 .payload(event.getPayload())
                 .build();
 
-        return activityRepository.save(activity)
+        return activityRepository.insert(activity)
                 .doOnNext(savedActivity -> {
                     log.debug("Activity saved: id={}, type={}", savedActivity.getId(), savedActivity.getType());
                     sseEmitterService.emit(event);
+                })
+                .onErrorResume(DuplicateKeyException.class, e -> {
+                    log.debug("Duplicate event ignored: eventId={}, type={}", event.getEventId(), event.getType());
+                    return Mono.empty();
                 });
     }
 
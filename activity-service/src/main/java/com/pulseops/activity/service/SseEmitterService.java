@@ -13,10 +13,20 @@ import java.util.UUID;
 @Service
 public class SseEmitterService {
 
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+
     private final Sinks.Many<EventEnvelope> sink;
+    private final Flux<EventEnvelope> heartbeats;
 
     public SseEmitterService() {
         this.sink = Sinks.many().multicast().onBackpressureBuffer();
+        // One timer and one heartbeat envelope per tick for all clients, rather than a timer per connection
+        this.heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                .map(tick -> EventEnvelope.builder()
+                        .type("heartbeat")
+                        .eventId("hb-" + System.currentTimeMillis())
+                        .build())
+                .share();
     }
 
     public Flux<EventEnvelope> subscribe() {
@@ -31,7 +41,7 @@ public class SseEmitterService {
 
     public Flux<EventEnvelope> subscribeWithHeartbeat() {
         return subscribe()
-                .mergeWith(heartbeatFlux())
+                .mergeWith(heartbeats)
                 .onErrorResume(error -> {
                     log.error("Error in SSE stream: {}", error.getMessage());
                     return Flux.empty();
@@ -46,12 +56,4 @@ public class SseEmitterService {
             log.warn("Failed to emit event to SSE clients: result={}", result);
         }
     }
-
-    private Flux<EventEnvelope> heartbeatFlux() {
-        return Flux.interval(Duration.ofSeconds(30))
-                .map(tick -> EventEnvelope.builder()
-                        .type("heartbeat")
-                        .eventId("hb-" + System.currentTimeMillis())
-                        .build());
-    }
 }
@@ -4,6 +4,35 @@ function getApiKey() {
   return localStorage.getItem('pulseops_api_key') || ''
 }
 
+// Short-lived token the gateway returns after verifying the API key; lets it skip the secrets-service round-trip
+const SESSION_TOKEN_KEY = 'pulseops_session_token'
+const SESSION_TOKEN_EXPIRES_KEY = 'pulseops_session_token_expires'
+const SESSION_TOKEN_API_KEY = 'pulseops_session_token_api_key'
+const SESSION_TOKEN_REFRESH_MARGIN_SECONDS = 30
+
+export function getSessionToken() {
+  const token = sessionStorage.getItem(SESSION_TOKEN_KEY)
+  const expires = Number(sessionStorage.getItem(SESSION_TOKEN_EXPIRES_KEY) || 0)
+  // A token minted for a previously configured API key must not outlive the key switch
+  if (!token || sessionStorage.getItem(SESSION_TOKEN_API_KEY) !== getApiKey()) {
+    return null
+  }
+  if (Date.now() / 1000 > expires - SESSION_TOKEN_REFRESH_MARGIN_SECONDS) {
+    return null
+  }
+  return token
+}
+
+function storeSessionToken(response, apiKey) {
+  const token = response.headers.get('X-Session-Token')
+  const expires = response.headers.get('X-Session-Token-Expires')
+  if (token && expires) {
+    sessionStorage.setItem(SESSION_TOKEN_KEY, token)
+    sessionStorage.setItem(SESSION_TOKEN_EXPIRES_KEY, expires)
+    sessionStorage.setItem(SESSION_TOKEN_API_KEY, apiKey)
+  }
+}
+
 async function fetchWithAuth(url, options = {}) {
   const apiKey = getApiKey()
 
@@ -17,11 +46,18 @@ async function fetchWithAuth(url, options = {}) {
     ...options.headers
   }
 
+  const sessionToken = getSessionToken()
+  if (sessionToken) {
+    headers['X-Session-Token'] = sessionToken
+  }
+
   const response = await fetch(`${API_BASE_URL}${url}`, {
     ...options,
     headers
   })
 
+  storeSessionToken(response, apiKey)
+
   if (!response.ok) {
     const error = await response.text()
     throw new Error(error || `HTTP ${response.status}`)
@@ -34,9 +70,42 @@ async function fetchWithAuth(url, options = {}) {
   return response.json()
 }
 
+// Batch API: several GETs in one round-trip. Resolves to { [id]: { status, body } }
+export async function batchGet(requests) {
+  const data = await fetchWithAuth('/api/batch', {
+    method: 'POST',
+    body: JSON.stringify({ requests: requests.map(({ id, path }) => ({ id, method: 'GET', path })) })
+  })
+  return Object.fromEntries(data.responses.map(({ id, status, body }) => [id, { status, body }]))
+}
+
 // Incidents API
-export async function listIncidents() {
-  return fetchWithAuth('/api/incidents')
+function incidentFilterQuery({ status, severity } = {}) {
+  const params = new URLSearchParams()
+  if (status) params.set('status', status)
+  if (severity) params.set('severity', severity)
+  return params
+}
+
+// Resolves to { items, nextCursor }; pass nextCursor back to get the following page (null on the last one).
+// status and severity are filtered on the server
+export async function listIncidents({ cursor, limit, status, severity } = {}) {
+  const params = incidentFilterQuery({ status, severity })
+  if (cursor) params.set('cursor', cursor)
+  if (limit) params.set('limit', limit)
+  const query = params.toString()
+  return fetchWithAuth(`/api/incidents${query ? `?${query}` : ''}`)
+}
+
+// Path of the count endpoint for the given filters, e.g. to pass to batchGet
+export function countIncidentsPath(filters = {}) {
+  const query = incidentFilterQuery(filters).toString()
+  return `/api/incidents/count${query ? `?${query}` : ''}`
+}
+
+// Resolves to { total, byStatus } for every incident matching the filters, not just a loaded page
+export async function countIncidents(filters = {}) {
+  return fetchWithAuth(countIncidentsPath(filters))
 }
 
 export async function getIncident(id) {
@@ -128,7 +197,14 @@ export async function createApiKey(name) {
 }
 
 // SSE
+export function getStreamUrl(baseUrl = API_BASE_URL) {
+  const sessionToken = getSessionToken()
+  if (sessionToken) {
+    return `${baseUrl}/api/stream?sessionToken=${encodeURIComponent(sessionToken)}`
+  }
+  return `${baseUrl}/api/stream?apiKey=${encodeURIComponent(getApiKey())}`
+}
+
 export function createSSEConnection() {
-  const apiKey = getApiKey()
-  return new EventSource(`${API_BASE_URL}/api/stream?apiKey=${encodeURIComponent(apiKey)}`)
+  return new EventSource(getStreamUrl())
 }
@@ -1,4 +1,5 @@
 import { useEffect, useRef, useCallback } from 'react'
+import { getStreamUrl } from '../api'
 
 // Global event listeners for SSE
 const listeners = new Set()
@@ -24,8 +25,8 @@ export function useSSE() {
       eventSourceRef.current.close()
     }
 
-    const url = `http://localhost:8080/api/stream?apiKey=${encodeURIComponent(apiKey)}`
-    const es = new EventSource(url)
+    // Prefer the session token so the raw API key stays out of the stream URL
+    const es = new EventSource(getStreamUrl('http://localhost:8080'))
     eventSourceRef.current = es
 
     es.onopen = () => {
@@ -1,57 +1,104 @@
-import { useState, useEffect, useCallback } from 'react'
-import { listIncidents } from '../api'
+import { useState, useEffect, useCallback, useMemo, useRef } from 'react'
+import { listIncidents, batchGet, countIncidentsPath } from '../api'
 import { useSSEEvent } from '../hooks/useSSE'
 import IncidentCard from '../components/IncidentCard'
 import ActivityTicker from '../components/ActivityTicker'
 
 const STATUS_FILTERS = ['ALL', 'OPEN', 'INVESTIGATING', 'MITIGATED', 'CLOSED']
 const SEVERITY_FILTERS = ['ALL', 'P1', 'P2', 'P3', 'P4']
+const PAGE_SIZE = 100
 
 function Dashboard() {
   const [incidents, setIncidents] = useState([])
   const [loading, setLoading] = useState(true)
   const [error, setError] = useState(null)
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [statusFilter, setStatusFilter] = useState('ALL')
   const [severityFilter, setSeverityFilter] = useState('ALL')
+  // Badge numbers for the whole collection, from the count endpoint rather than the loaded pages
+  const [counts, setCounts] = useState({ total: 0, byStatus: {}, bySeverity: {} })
+  // Responses for a filter the user has since changed must not replace the current list
+  const requestSeq = useRef(0)
+
+  const filters = useMemo(() => ({
+    status: statusFilter === 'ALL' ? undefined : statusFilter,
+    severity: severityFilter === 'ALL' ? undefined : severityFilter
+  }), [statusFilter, severityFilter])
 
   const fetchIncidents = useCallback(async () => {
+    const seq = ++requestSeq.current
     try {
       setLoading(true)
-      const data = await listIncidents()
-      setIncidents(data)
+      const page = await listIncidents({ ...filters, limit: PAGE_SIZE })
+      if (seq !== requestSeq.current) return
+      setIncidents(page.items)
+      setNextCursor(page.nextCursor)
       setError(null)
     } catch (err) {
-      setError(err.message)
+      if (seq === requestSeq.current) setError(err.message)
     } finally {
-      setLoading(false)
+      if (seq === requestSeq.current) setLoading(false)
+    }
+  }, [filters])
+
+  // One round-trip for the overall and per-severity counts
+  const fetchCounts = useCallback(async () => {
+    try {
+      const severities = SEVERITY_FILTERS.filter(severity => severity !== 'ALL')
+      const results = await batchGet([
+        { id: 'ALL', path: countIncidentsPath() },
+        ...severities.map(severity => ({ id: severity, path: countIncidentsPath({ severity }) }))
+      ])
+      const all = results.ALL?.status === 200 ? results.ALL.body : { total: 0, byStatus: {} }
+      const bySeverity = Object.fromEntries(severities.map(severity =>
+        [severity, results[severity]?.status === 200 ? results[severity].body.total : 0]))
+      setCounts({ total: all.total, byStatus: all.byStatus || {}, bySeverity })
+    } catch (err) {
+      // The list still works without badge numbers
+      console.error('Failed to load incident counts:', err)
     }
   }, [])
 
+  const loadMore = async () => {
+    const seq = requestSeq.current
+    setLoadingMore(true)
+    try {
+      const page = await listIncidents({ ...filters, cursor: nextCursor, limit: PAGE_SIZE })
+      if (seq !== requestSeq.current) return
+      setIncidents(prev => [...prev, ...page.items])
+      setNextCursor(page.nextCursor)
+    } catch (err) {
+      if (seq === requestSeq.current) setError(err.message)
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+
   useEffect(() => {
     fetchIncidents()
   }, [fetchIncidents])
 
+  useEffect(() => {
+    fetchCounts()
+  }, [fetchCounts])
+
   // Listen for SSE events to refresh incidents
   useSSEEvent((event) => {
     if (event.type?.startsWith('incident.')) {
       fetchIncidents()
+      fetchCounts()
     }
   })
 
-  const filteredIncidents = incidents.filter(incident => {
-    const statusMatch = statusFilter === 'ALL' || incident.status === statusFilter
-    const severityMatch = severityFilter === 'ALL' || incident.severity === severityFilter
-    return statusMatch && severityMatch
-  })
-
   const getStatusCount = (status) => {
-    if (status === 'ALL') return incidents.length
-    return incidents.filter(i => i.status === status).length
+    if (status === 'ALL') return counts.total
+    return counts.byStatus[status] || 0
   }
 
   const getSeverityCount = (severity) => {
-    if (severity === 'ALL') return incidents.length
-    return incidents.filter(i => i.severity === severity).length
+    if (severity === 'ALL') return counts.total
+    return counts.bySeverity[severity] || 0
   }
 
   return (
@@ -144,14 +191,14 @@ function Dashboard() {
           )}
 
           {/* Empty state */}
-          {!loading && !error && filteredIncidents.length === 0 && (
+          {!loading && !error && incidents.length === 0 && (
             <div className="text-center py-12">
               <div className="text-6xl mb-4">📋</div>
               <h3 className="text-lg font-medium text-gray-900 mb-2">
                 No incidents found
               </h3>
               <p className="text-gray-500 mb-4">
-                {incidents.length === 0
+                {counts.total === 0
                   ? "Get started by creating your first incident"
                   : "Try adjusting your filters to see more results"}
               </p>
@@ -161,11 +208,24 @@ function Dashboard() {
           {/* Incident grid */}
           {!loading && (
             <div className="grid grid-cols-1 md:grid-cols-2 xl:grid-cols-3 gap-4">
-              {filteredIncidents.map(incident => (
+              {incidents.map(incident => (
                 <IncidentCard key={incident.id} incident={incident} />
               ))}
             </div>
           )}
+
+          {/* Next page */}
+          {!loading && nextCursor && (
+            <div className="flex justify-center mt-6">
+              <button
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="px-4 py-2 rounded-md text-sm font-medium bg-gray-100 text-gray-700 hover:bg-gray-200 disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more incidents'}
+              </button>
+            </div>
+          )}
         </div>
 
         {/* Sidebar - Activity Ticker */}
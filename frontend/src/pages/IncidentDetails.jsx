@@ -1,6 +1,6 @@
 import { useState, useEffect, useCallback } from 'react'
 import { useParams, useNavigate } from 'react-router-dom'
-import { getIncident, updateIncident, changeStatus, listEvidence, uploadEvidence, getEvidenceDownloadUrl } from '../api'
+import { batchGet, getIncident, updateIncident, changeStatus, listEvidence, uploadEvidence, getEvidenceDownloadUrl } from '../api'
 import { useSSEEvent } from '../hooks/useSSE'
 import StatusBadge from '../components/StatusBadge'
 import SeverityBadge from '../components/SeverityBadge'
@@ -21,21 +21,26 @@ function IncidentDetails() {
   const [editing, setEditing] = useState(false)
   const [editForm, setEditForm] = useState({})
 
+  const applyIncident = useCallback((data) => {
+    setIncident(data)
+    setEditForm({
+      title: data.title,
+      description: data.description,
+      assignee: data.assignee || '',
+      severity: data.severity,
+      // Sent back with the edit so a change made meanwhile is reported as a conflict, not overwritten
+      version: data.version
+    })
+    setError(null)
+  }, [])
+
   const fetchIncident = useCallback(async () => {
     try {
-      const data = await getIncident(id)
-      setIncident(data)
-      setEditForm({
-        title: data.title,
-        description: data.description,
-        assignee: data.assignee || '',
-        severity: data.severity
-      })
-      setError(null)
+      applyIncident(await getIncident(id))
     } catch (err) {
       setError(err.message)
     }
-  }, [id])
+  }, [id, applyIncident])
 
   const fetchEvidence = useCallback(async () => {
     try {
@@ -46,14 +51,32 @@ function IncidentDetails() {
     }
   }, [id])
 
+  // Initial load fetches the incident and its evidence in one batch request
   useEffect(() => {
     const loadData = async () => {
       setLoading(true)
-      await Promise.all([fetchIncident(), fetchEvidence()])
+      try {
+        const parts = await batchGet([
+          { id: 'incident', path: `/api/incidents/${id}` },
+          { id: 'evidence', path: `/api/incidents/${id}/evidence` }
+        ])
+        if (parts.incident.status === 200) {
+          applyIncident(parts.incident.body)
+        } else {
+          setError(parts.incident.body?.message || `HTTP ${parts.incident.status}`)
+        }
+        if (parts.evidence.status === 200) {
+          setEvidence(parts.evidence.body)
+        } else {
+          console.error('Failed to fetch evidence:', parts.evidence.status)
+        }
+      } catch (err) {
+        setError(err.message)
+      }
       setLoading(false)
     }
     loadData()
-  }, [fetchIncident, fetchEvidence])
+  }, [id, applyIncident])
 
   // Listen for SSE events
   useSSEEvent((event) => {
@@ -2,8 +2,12 @@ package com.pulseops.gateway;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableKafka
+@EnableScheduling
 public class GatewayServiceApplication {
 
     public static void main(String[] args) {
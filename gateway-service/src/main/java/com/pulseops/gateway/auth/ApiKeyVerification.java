@@ -0,0 +1,20 @@
+package com.pulseops.gateway.auth;
+
+import java.time.Instant;
+
+/**
+ * Outcome of verifying an API key against secrets-service.
+ * Valid results carry the key id and expiry so the gateway can bound how long it trusts them.
+ */
+public record ApiKeyVerification(boolean valid, String keyId, Instant expiresAt) {
+
+    private static final ApiKeyVerification INVALID = new ApiKeyVerification(false, null, null);
+
+    public static ApiKeyVerification valid(String keyId, Instant expiresAt) {
+        return new ApiKeyVerification(true, keyId, expiresAt);
+    }
+
+    public static ApiKeyVerification invalid() {
+        return INVALID;
+    }
+}
@@ -0,0 +1,150 @@
+package com.pulseops.gateway.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * In-process cache of API key verification results, keyed by the SHA-256 of the key so plain keys
+ * are never retained. Valid results live for the configured TTL (capped at the key's expiry),
+ * invalid results for a shorter negative TTL.
+ *
+ * <p>Valid results are also remembered for a longer trust window, independent of the cache TTL,
+ * so the gateway can keep admitting recently-verified keys while secrets-service is unavailable.
+ */
+@Slf4j
+@Component
+public class ApiKeyVerificationCache {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Cache<String, ApiKeyVerification> cache;
+    private final Cache<String, ApiKeyVerification> recentlyVerified;
+    private final Counter revocationEvictions;
+
+    public ApiKeyVerificationCache(MeterRegistry meterRegistry,
+            @Value("${pulseops.gateway.api-key.cache.enabled:true}") boolean enabled,
+            @Value("${pulseops.gateway.api-key.cache.max-size:10000}") long maxSize,
+            @Value("${pulseops.gateway.api-key.cache.ttl:5m}") Duration ttl,
+            @Value("${pulseops.gateway.api-key.cache.negative-ttl:30s}") Duration negativeTtl,
+            @Value("${pulseops.gateway.api-key.resilience.degraded.trust-window:1h}") Duration trustWindow) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new VerificationExpiry())
+                .recordStats()
+                .build();
+        this.recentlyVerified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(trustWindow)
+                .build();
+        this.revocationEvictions = Counter.builder("gateway.apikey.cache.revocations")
+                .description("Cache entries dropped because the key was revoked or deactivated")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.apikey.verification");
+        log.info("API key verification cache: enabled={}, maxSize={}, ttl={}, negativeTtl={}, trustWindow={}",
+                enabled, maxSize, ttl, negativeTtl, trustWindow);
+    }
+
+    public ApiKeyVerification get(String keyHash) {
+        return enabled ? cache.getIfPresent(keyHash) : null;
+    }
+
+    public void put(String keyHash, ApiKeyVerification verification) {
+        if (enabled) {
+            cache.put(keyHash, verification);
+        }
+        if (verification.valid()) {
+            recentlyVerified.put(keyHash, verification);
+        }
+    }
+
+    /**
+     * @return the last successful verification of the key within the trust window, or null if there is
+     *         none or the key has since expired
+     */
+    public ApiKeyVerification getRecentlyVerified(String keyHash) {
+        ApiKeyVerification verification = recentlyVerified.getIfPresent(keyHash);
+        if (verification == null
+                || (verification.expiresAt() != null && !verification.expiresAt().isAfter(Instant.now()))) {
+            return null;
+        }
+        return verification;
+    }
+
+    /**
+     * Drops every cached result for the given key id. Revocations are rare, so a scan over the
+     * bounded cache is cheaper than maintaining a secondary index on every insert.
+     */
+    public void evictKeyId(String keyId) {
+        if (keyId == null) {
+            return;
+        }
+        boolean removed = cache.asMap().values().removeIf(v -> keyId.equals(v.keyId()));
+        removed |= recentlyVerified.asMap().values().removeIf(v -> keyId.equals(v.keyId()));
+        if (removed) {
+            revocationEvictions.increment();
+            log.info("Evicted cached verification for revoked API key: keyId={}", keyId);
+        }
+    }
+
+    public static String hashKey(String apiKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            return HexFormat.of().formatHex(digest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash API key", e);
+        }
+    }
+
+    private long ttlNanos(ApiKeyVerification verification) {
+        if (!verification.valid()) {
+            return negativeTtl.toNanos();
+        }
+        if (verification.expiresAt() == null) {
+            return ttl.toNanos();
+        }
+        Duration untilExpiry = Duration.between(Instant.now(), verification.expiresAt());
+        if (untilExpiry.isNegative()) {
+            return 0;
+        }
+        return Math.min(ttl.toNanos(), untilExpiry.toNanos());
+    }
+
+    private class VerificationExpiry implements Expiry<String, ApiKeyVerification> {
+
+        @Override
+        public long expireAfterCreate(String key, ApiKeyVerification value, long currentTime) {
+            return ttlNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ApiKeyVerification value, long currentTime, long currentDuration) {
+            return ttlNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ApiKeyVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
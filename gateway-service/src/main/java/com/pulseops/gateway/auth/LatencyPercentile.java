@@ -0,0 +1,50 @@
+package com.pulseops.gateway.auth;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile over a ring of the most recent latency samples. The percentile is recomputed every
+ * {@code windowSize / 4} samples rather than on every read, so {@link #get} is a volatile load
+ * on the request path.
+ */
+public class LatencyPercentile {
+
+    private final double percentile;
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final int recomputeEvery;
+    private volatile long currentNanos;
+
+    public LatencyPercentile(double percentile, int windowSize, long initialNanos) {
+        this.percentile = percentile;
+        this.samples = new AtomicLongArray(windowSize);
+        this.recomputeEvery = Math.max(1, windowSize / 4);
+        this.currentNanos = initialNanos;
+    }
+
+    public void record(long nanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % samples.length()), nanos);
+        if ((n + 1) % recomputeEvery == 0) {
+            recompute(Math.min(n + 1, samples.length()));
+        }
+    }
+
+    /**
+     * @return the current percentile estimate, or the initial value until enough samples have been seen
+     */
+    public long get() {
+        return currentNanos;
+    }
+
+    private void recompute(long filled) {
+        long[] sorted = new long[(int) filled];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        currentNanos = sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,281 @@
+package com.pulseops.gateway.auth;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Client for secrets-service key verification.
+ * When batching is enabled, verifications are buffered for a short window (or until the batch is full)
+ * and sent as one {@code /internal/verify/batch} call, trading a few hundred microseconds of latency
+ * for far fewer HTTP requests and Mongo queries under load.
+ *
+ * <p>Every verification is bounded by a tight timeout and guarded by a {@link CircuitBreaker}, so a slow
+ * secrets-service fails fast instead of holding gateway connections. While the circuit is closed a
+ * verification that hasn't answered by the recent p95 latency is hedged with a second, unbatched call,
+ * and whichever answers first wins.
+ */
+@Slf4j
+@Component
+public class SecretsServiceClient {
+
+    private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+    private static final ParameterizedTypeReference<List<VerifyKeyResult>> BATCH_RESULT_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final WebClient webClient;
+    private final boolean batchingEnabled;
+    private volatile FluxSink<PendingVerification> pending;
+    private final Disposable batchPipeline;
+    private final DistributionSummary batchSizes;
+    private final VerificationResilienceProperties resilience;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyPercentile latency;
+    private final MeterRegistry meterRegistry;
+
+    public SecretsServiceClient(WebClient.Builder webClientBuilder,
+            MeterRegistry meterRegistry,
+            VerificationResilienceProperties resilience,
+            @Value("${secrets.service.url:http://localhost:8081}") String secretsServiceUrl,
+            @Value("${pulseops.gateway.api-key.batch.enabled:true}") boolean batchingEnabled,
+            @Value("${pulseops.gateway.api-key.batch.max-size:64}") int maxBatchSize,
+            @Value("${pulseops.gateway.api-key.batch.window:500us}") Duration batchWindow,
+            @Value("${pulseops.gateway.api-key.batch.max-concurrent-batches:16}") int maxConcurrentBatches) {
+        this.webClient = webClientBuilder.baseUrl(secretsServiceUrl).build();
+        this.batchingEnabled = batchingEnabled;
+        this.batchSizes = DistributionSummary.builder("gateway.apikey.verification.batch.size")
+                .description("Keys sent per batched verification call")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.resilience = resilience;
+        this.latency = new LatencyPercentile(resilience.getHedge().getPercentile(), 256,
+                resilience.getHedge().getInitialDelay().toNanos());
+
+        VerificationResilienceProperties.CircuitBreakerSettings breaker = resilience.getCircuitBreaker();
+        if (breaker.isEnabled()) {
+            this.circuitBreaker = new CircuitBreaker(breaker.getSlidingWindowSize(), breaker.getMinimumCalls(),
+                    breaker.getFailureRateThreshold(), breaker.getOpenDuration(), breaker.getHalfOpenProbes(),
+                    this::onCircuitTransition);
+            Gauge.builder("gateway.apikey.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                    .description("Verification circuit state: 0=closed, 1=open, 2=half-open")
+                    .register(meterRegistry);
+        } else {
+            this.circuitBreaker = null;
+        }
+
+        if (batchingEnabled) {
+            // FluxSink serializes concurrent emits through a queue, so event-loop threads never spin on each other
+            this.batchPipeline = Flux.<PendingVerification>create(sink -> this.pending = sink)
+                    .bufferTimeout(maxBatchSize, batchWindow)
+                    .onBackpressureBuffer()
+                    .flatMap(this::sendBatch, maxConcurrentBatches)
+                    .subscribe();
+        } else {
+            this.batchPipeline = null;
+        }
+        log.info("Initializing SecretsServiceClient with secrets service URL: {}, batching={}, maxBatchSize={}, window={}, "
+                        + "timeout={}, circuitBreaker={}, hedging={}",
+                secretsServiceUrl, batchingEnabled, maxBatchSize, batchWindow,
+                resilience.getTimeout(), breaker.isEnabled(), resilience.getHedge().isEnabled());
+    }
+
+    /**
+     * Verifies a key, failing with {@link VerificationUnavailableException} without calling
+     * secrets-service while the circuit is open.
+     */
+    public Mono<ApiKeyVerification> verify(String apiKey, String correlationId) {
+        return Mono.defer(() -> {
+            if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+                meterRegistry.counter("gateway.apikey.circuit.rejected").increment();
+                return Mono.error(new VerificationUnavailableException("Secrets service circuit is open"));
+            }
+
+            Mono<ApiKeyVerification> call = hedgingEnabled()
+                    ? hedged(apiKey, correlationId)
+                    : attempt(apiKey, correlationId, true);
+            call = call.timeout(resilience.getTimeout());
+            if (circuitBreaker == null) {
+                return call;
+            }
+            // A 401 from secrets-service is a healthy answer; only transport errors and timeouts count as failures
+            return call
+                    .doOnSuccess(verification -> circuitBreaker.onSuccess())
+                    .doOnError(e -> circuitBreaker.onFailure())
+                    .doOnCancel(circuitBreaker::releasePermission);
+        });
+    }
+
+    private boolean hedgingEnabled() {
+        // Hedging a struggling secrets-service would only add load, so probes while half-open go out alone
+        return resilience.getHedge().isEnabled()
+                && (circuitBreaker == null || circuitBreaker.getState() == CircuitBreaker.State.CLOSED);
+    }
+
+    private Mono<ApiKeyVerification> hedged(String apiKey, String correlationId) {
+        Duration delay = Duration.ofNanos(Math.max(resilience.getHedge().getMinDelay().toNanos(), latency.get()));
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+
+        Mono<HedgedResult> primary = attempt(apiKey, correlationId, true)
+                .map(verification -> new HedgedResult(verification, false));
+        // The hedge bypasses the batch buffer so it can't end up queued behind the same slow batch
+        Mono<HedgedResult> hedge = Mono.delay(delay)
+                .then(Mono.defer(() -> {
+                    hedgeSent.set(true);
+                    return attempt(apiKey, correlationId, false);
+                }))
+                .map(verification -> new HedgedResult(verification, true));
+
+        return Mono.firstWithValue(primary, hedge)
+                .doOnNext(result -> {
+                    if (hedgeSent.get()) {
+                        meterRegistry.counter("gateway.apikey.verification.hedges",
+                                "result", result.fromHedge() ? "won" : "lost").increment();
+                    }
+                })
+                .map(HedgedResult::verification);
+    }
+
+    private Mono<ApiKeyVerification> attempt(String apiKey, String correlationId, boolean primary) {
+        Mono<ApiKeyVerification> call = batchingEnabled && primary
+                ? enqueue(apiKey, correlationId)
+                : verifySingle(apiKey, correlationId);
+        if (!primary) {
+            return call;
+        }
+        // A primary cancelled because the hedge won still took at least this long, which keeps the
+        // percentile from drifting down as hedging trims the tail
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(verification -> latency.record(System.nanoTime() - start))
+                    .doOnCancel(() -> latency.record(System.nanoTime() - start));
+        });
+    }
+
+    private void onCircuitTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        log.warn("Secrets service verification circuit transitioned from {} to {}", from, to);
+        meterRegistry.counter("gateway.apikey.circuit.transitions", "from", from.name(), "to", to.name()).increment();
+    }
+
+    private Mono<ApiKeyVerification> enqueue(String apiKey, String correlationId) {
+        return Mono.defer(() -> {
+            Sinks.One<ApiKeyVerification> result = Sinks.one();
+            pending.next(new PendingVerification(apiKey, correlationId, result));
+            return result.asMono();
+        });
+    }
+
+    private Mono<ApiKeyVerification> verifySingle(String apiKey, String correlationId) {
+        return webClient.post()
+                .uri("/internal/verify")
+                .header(CORRELATION_ID_HEADER, correlationId != null ? correlationId : "")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new VerifyKeyRequest(apiKey))
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(VerifyKeyResponse.class)
+                                .map(body -> ApiKeyVerification.valid(body.getId(), body.getExpiresAt()))
+                                .defaultIfEmpty(ApiKeyVerification.valid(null, null));
+                    }
+                    if (response.statusCode().is4xxClientError()) {
+                        return response.releaseBody().thenReturn(ApiKeyVerification.invalid());
+                    }
+                    return response.createError();
+                });
+    }
+
+    private Mono<Void> sendBatch(List<PendingVerification> batch) {
+        batchSizes.record(batch.size());
+        List<String> apiKeys = batch.stream().map(PendingVerification::apiKey).toList();
+        // One call answers many requests, so it gets its own correlation id, logged against theirs
+        String batchId = "verify-batch-" + UUID.randomUUID();
+        if (log.isDebugEnabled()) {
+            log.debug("Batch verification {} carries requests {}", batchId,
+                    batch.stream().map(PendingVerification::correlationId).toList());
+        }
+
+        return webClient.post()
+                .uri("/internal/verify/batch")
+                .header(CORRELATION_ID_HEADER, batchId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new VerifyKeysRequest(apiKeys))
+                .retrieve()
+                .bodyToMono(BATCH_RESULT_TYPE)
+                .doOnNext(results -> {
+                    if (results.size() != batch.size()) {
+                        throw new IllegalStateException("Batch verification returned " + results.size()
+                                + " results for " + batch.size() + " keys");
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        VerifyKeyResult result = results.get(i);
+                        batch.get(i).result().tryEmitValue(result.isValid()
+                                ? ApiKeyVerification.valid(result.getId(), result.getExpiresAt())
+                                : ApiKeyVerification.invalid());
+                    }
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Batch verification {} of {} keys failed for requests {}", batchId, batch.size(),
+                            batch.stream().map(PendingVerification::correlationId).toList(), e);
+                    batch.forEach(p -> p.result().tryEmitError(e));
+                    return Mono.empty();
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batchPipeline != null) {
+            pending.complete();
+            batchPipeline.dispose();
+        }
+    }
+
+    private record HedgedResult(ApiKeyVerification verification, boolean fromHedge) {
+    }
+
+    private record PendingVerification(String apiKey, String correlationId, Sinks.One<ApiKeyVerification> result) {
+    }
+
+    @Data
+    private static class VerifyKeyRequest {
+        private final String apiKey;
+    }
+
+    @Data
+    private static class VerifyKeyResponse {
+        private String id;
+        private Instant expiresAt;
+    }
+
+    @Data
+    private static class VerifyKeysRequest {
+        private final List<String> apiKeys;
+    }
+
+    @Data
+    private static class VerifyKeyResult {
+        private boolean valid;
+        private String id;
+        private Instant expiresAt;
+    }
+}
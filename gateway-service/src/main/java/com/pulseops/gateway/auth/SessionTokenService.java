@@ -0,0 +1,292 @@
+package com.pulseops.gateway.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies short-lived HMAC-signed session tokens so that requests after the first
+ * API key verification can be authenticated in CPU, without a call to secrets-service.
+ *
+ * <p>Token format: {@code base64url(keyId:expiresAtEpochSeconds:epoch:keyExpiresAtEpochSeconds).base64url(hmac)},
+ * with a key expiry of 0 for keys that don't expire. The signing key is derived from the shared secret per
+ * rotation epoch, so every gateway replica changes keys in lockstep without coordination; tokens from the
+ * current and the previous epoch are accepted, giving one rotation period of overlap. Epoch keys only limit
+ * how long one derived key is in use: they all come from the same secret, so rotating the secret itself
+ * means setting a new {@code secret} and moving the old one to {@code previous-secrets}. Tokens are signed
+ * with the current secret and accepted under any listed one; once a ttl has passed every outstanding token
+ * is signed with the new secret and the old one can be removed.
+ *
+ * <p>The token issued for a key is reused for further requests authenticated with that key until it is
+ * within {@code renew-before} of expiring, so clients that keep sending the API key don't cost an HMAC
+ * each time.
+ */
+@Slf4j
+@Component
+public class SessionTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration renewBefore;
+    private final long rotationSeconds;
+    /** Current secret first, then previous ones still accepted. */
+    private final List<byte[]> secrets;
+    private final List<Map<Long, SecretKeySpec>> epochKeys;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(SessionTokenService::newMac);
+    private final Cache<String, Boolean> revokedKeyIds;
+    private final Cache<String, IssuedToken> issuedByKeyId;
+    private final Counter issued;
+    private final Counter accepted;
+    private final Counter rejected;
+
+    public SessionTokenService(MeterRegistry meterRegistry,
+            @Value("${pulseops.gateway.session-token.enabled:true}") boolean enabled,
+            @Value("${pulseops.gateway.session-token.secret:}") String secret,
+            @Value("${pulseops.gateway.session-token.previous-secrets:}") List<String> previousSecrets,
+            @Value("${pulseops.gateway.session-token.ttl:5m}") Duration ttl,
+            @Value("${pulseops.gateway.session-token.renew-before:1m}") Duration renewBefore,
+            @Value("${pulseops.gateway.session-token.rotation-period:1h}") Duration rotationPeriod) {
+        if (rotationPeriod.compareTo(ttl) < 0) {
+            throw new IllegalArgumentException("Session token rotation-period must not be shorter than ttl");
+        }
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.renewBefore = renewBefore.compareTo(ttl) < 0 ? renewBefore : ttl.dividedBy(2);
+        this.rotationSeconds = rotationPeriod.toSeconds();
+        List<byte[]> configured = new ArrayList<>();
+        if (secret == null || secret.isBlank()) {
+            log.warn("No session token secret configured; using a random per-instance secret. "
+                    + "Tokens will only be accepted by the replica that issued them");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            configured.add(random);
+        } else {
+            configured.add(secret.getBytes(StandardCharsets.UTF_8));
+        }
+        if (previousSecrets != null) {
+            previousSecrets.stream()
+                    .filter(previous -> previous != null && !previous.isBlank())
+                    .forEach(previous -> configured.add(previous.getBytes(StandardCharsets.UTF_8)));
+        }
+        this.secrets = List.copyOf(configured);
+        this.epochKeys = new ArrayList<>();
+        for (int i = 0; i < secrets.size(); i++) {
+            epochKeys.add(new ConcurrentHashMap<>());
+        }
+        // A revoked key's outstanding tokens die within one ttl, so the revocation only needs to be remembered that long
+        this.revokedKeyIds = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(100_000)
+                .build();
+        this.issuedByKeyId = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.minus(this.renewBefore))
+                .maximumSize(100_000)
+                .build();
+
+        this.issued = tokenCounter(meterRegistry, "issued");
+        this.accepted = tokenCounter(meterRegistry, "accepted");
+        this.rejected = tokenCounter(meterRegistry, "rejected");
+
+        log.info("Session tokens: enabled={}, ttl={}, renewBefore={}, rotationPeriod={}, previousSecrets={}",
+                enabled, ttl, this.renewBefore, rotationPeriod, secrets.size() - 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A token for a verified key: the one last issued for it while that has more than {@code renew-before}
+     * left, otherwise a new one. The token never outlives the key itself.
+     */
+    public IssuedToken issue(String keyId, Instant keyExpiresAt) {
+        IssuedToken recent = issuedByKeyId.getIfPresent(keyId);
+        if (recent != null && Objects.equals(recent.keyExpiresAt(), keyExpiresAt)
+                && Instant.now().plus(renewBefore).isBefore(recent.expiresAt())) {
+            return recent;
+        }
+        IssuedToken token = sign(keyId, keyExpiresAt);
+        issuedByKeyId.put(keyId, token);
+        return token;
+    }
+
+    /** Whether a verified token is close enough to expiry that the client should be given a new one. */
+    public boolean needsRenewal(VerifiedToken token) {
+        return !Instant.now().plus(renewBefore).isBefore(token.expiresAt());
+    }
+
+    /**
+     * Returns the key a valid token was issued for, or {@code null} if the token is malformed,
+     * tampered with, expired, signed with a retired epoch key or secret, or belongs to a revoked key.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken verified = doVerify(token);
+        if (verified != null) {
+            accepted.increment();
+        } else {
+            rejected.increment();
+        }
+        return verified;
+    }
+
+    private IssuedToken sign(String keyId, Instant keyExpiresAt) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        if (keyExpiresAt != null && keyExpiresAt.isBefore(expiresAt)) {
+            expiresAt = keyExpiresAt;
+        }
+        long epoch = epochOf(now);
+        String payload = keyId + ":" + expiresAt.getEpochSecond() + ":" + epoch + ":"
+                + (keyExpiresAt != null ? keyExpiresAt.getEpochSecond() : 0);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        String token = ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(0, epoch, payloadBytes));
+        issued.increment();
+        return new IssuedToken(token, expiresAt, keyExpiresAt);
+    }
+
+    public void revokeKeyId(String keyId) {
+        if (keyId != null) {
+            revokedKeyIds.put(keyId, Boolean.TRUE);
+            issuedByKeyId.invalidate(keyId);
+        }
+    }
+
+    private VerifiedToken doVerify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split(":");
+        if (parts.length != 4) {
+            return null;
+        }
+        long expiresAt;
+        long epoch;
+        long keyExpiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[1]);
+            epoch = Long.parseLong(parts[2]);
+            keyExpiresAt = Long.parseLong(parts[3]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        Instant now = Instant.now();
+        long currentEpoch = epochOf(now);
+        if (epoch != currentEpoch && epoch != currentEpoch - 1) {
+            return null;
+        }
+        if (!signedWithKnownSecret(signature, epoch, payloadBytes)) {
+            return null;
+        }
+        if (now.getEpochSecond() >= expiresAt) {
+            return null;
+        }
+        String keyId = parts[0];
+        if (revokedKeyIds.getIfPresent(keyId) != null) {
+            return null;
+        }
+        return new VerifiedToken(keyId, Instant.ofEpochSecond(expiresAt),
+                keyExpiresAt != 0 ? Instant.ofEpochSecond(keyExpiresAt) : null);
+    }
+
+    // Nearly every token is signed with the current secret, so previous ones cost an HMAC only after a rotation
+    private boolean signedWithKnownSecret(byte[] signature, long epoch, byte[] payload) {
+        for (int secret = 0; secret < secrets.size(); secret++) {
+            if (MessageDigest.isEqual(signature, sign(secret, epoch, payload))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] sign(int secret, long epoch, byte[] payload) {
+        try {
+            Mac mac = macs.get();
+            mac.init(epochKey(secret, epoch));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign session token", e);
+        }
+    }
+
+    private SecretKeySpec epochKey(int secret, long epoch) {
+        Map<Long, SecretKeySpec> keys = epochKeys.get(secret);
+        SecretKeySpec key = keys.get(epoch);
+        if (key != null) {
+            return key;
+        }
+        key = keys.computeIfAbsent(epoch, e -> deriveEpochKey(secrets.get(secret), e));
+        // Only the current and previous epochs are ever used; drop anything older
+        keys.keySet().removeIf(e -> e < epoch - 1);
+        return key;
+    }
+
+    private static SecretKeySpec deriveEpochKey(byte[] secret, long epoch) {
+        try {
+            Mac mac = newMac();
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            byte[] derived = mac.doFinal(("pulseops-session-token:" + epoch).getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(derived, HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive session token key", e);
+        }
+    }
+
+    private long epochOf(Instant instant) {
+        return instant.getEpochSecond() / rotationSeconds;
+    }
+
+    private static Mac newMac() {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC algorithm not available: " + HMAC_ALGORITHM, e);
+        }
+    }
+
+    private static Counter tokenCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.session.tokens")
+                .description("Session tokens issued, accepted and rejected by the gateway")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public record IssuedToken(String token, Instant expiresAt, Instant keyExpiresAt) {
+    }
+
+    public record VerifiedToken(String keyId, Instant expiresAt, Instant keyExpiresAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.pulseops.gateway.auth;
+
+import io.micrometer.core.instrument.Counter;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent calls for the same key into a single in-flight {@link Mono}.
+ * The first caller starts the call; everyone arriving before it terminates subscribes to the same result.
+ * The shared call is not cancelled when an individual waiter goes away, so a disconnecting client
+ * cannot fail the requests that piggy-backed on it.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public SingleFlight(Counter coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    public Mono<V> execute(K key, Function<K, Mono<V>> call) {
+        Mono<V> existing = inFlight.get(key);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        boolean[] created = {false};
+        Mono<V> flight = inFlight.computeIfAbsent(key, k -> {
+            created[0] = true;
+            return call.apply(k)
+                    .doFinally(signal -> inFlight.remove(k))
+                    .share();
+        });
+        if (!created[0]) {
+            coalesced.increment();
+        }
+        return flight;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,61 @@
+package com.pulseops.gateway.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Timeout, circuit breaker, hedging and degraded-mode settings for the secrets-service verification call.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pulseops.gateway.api-key.resilience")
+public class VerificationResilienceProperties {
+
+    /** Upper bound on one verification, including any hedged attempt. */
+    private Duration timeout = Duration.ofSeconds(1);
+
+    private CircuitBreakerSettings circuitBreaker = new CircuitBreakerSettings();
+
+    private HedgeSettings hedge = new HedgeSettings();
+
+    private DegradedSettings degraded = new DegradedSettings();
+
+    @Data
+    public static class CircuitBreakerSettings {
+        private boolean enabled = true;
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        /** Failure percentage at which the circuit opens. */
+        private double failureRateThreshold = 50;
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenProbes = 3;
+    }
+
+    @Data
+    public static class HedgeSettings {
+        private boolean enabled = true;
+        /** Latency percentile after which a second attempt is sent. */
+        private double percentile = 0.95;
+        /** Hedge delay used until enough latency samples have been recorded. */
+        private Duration initialDelay = Duration.ofMillis(50);
+        /** Floor on the hedge delay, so a very fast secrets-service doesn't double every call. */
+        private Duration minDelay = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class DegradedSettings {
+        private DegradedMode mode = DegradedMode.TRUST_RECENT;
+        /** How long after its last successful verification a key is still trusted while the circuit is open. */
+        private Duration trustWindow = Duration.ofHours(1);
+    }
+
+    public enum DegradedMode {
+        /** Reject every request that needs a verification with 503. */
+        FAIL_CLOSED,
+        /** Accept keys that verified successfully within the trust window, reject the rest with 503. */
+        TRUST_RECENT
+    }
+}
@@ -0,0 +1,11 @@
+package com.pulseops.gateway.auth;
+
+/**
+ * Raised instead of calling secrets-service while the verification circuit is open.
+ */
+public class VerificationUnavailableException extends RuntimeException {
+
+    public VerificationUnavailableException(String message) {
+        super(message);
+    }
+}
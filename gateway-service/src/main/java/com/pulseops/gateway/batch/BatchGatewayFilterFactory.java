@@ -0,0 +1,327 @@
+package com.pulseops.gateway.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pulseops.gateway.cache.CachedResponse;
+import com.pulseops.gateway.cache.ResponseCache;
+import com.pulseops.gateway.concurrency.ConcurrencyLimitGatewayFilterFactory;
+import com.pulseops.gateway.concurrency.RoutePriority;
+import com.pulseops.gateway.filter.ApiKeyGatewayFilterFactory;
+import com.pulseops.gateway.ratelimit.RateLimitGatewayFilterFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Terminal filter for {@code POST /api/batch}: runs a list of GET sub-requests in parallel and returns
+ * all results in one response. Must be applied after {@link com.pulseops.gateway.filter.ApiKeyGatewayFilterFactory},
+ * so the caller is authenticated once before any sub-request is dispatched.
+ *
+ * <p>Each sub-request is matched against the route table and sent straight to that route's downstream,
+ * so it costs no extra socket or authentication: the batch was authenticated as a whole, and sub-requests
+ * share that. Only routes carrying {@link #DOWNSTREAM_METADATA} can be batched. As a request through the
+ * route would, a sub-request is charged to that route's rate limit for the caller's key (answered 429 when
+ * the bucket is empty), then served from the response cache when a fresh entry exists, and otherwise takes
+ * a slot of the downstream's concurrency limit. The batch route's own limit counts batches on top of that.
+ *
+ * <p>With {@code Accept: application/x-ndjson} each part is written as one line as soon as it completes;
+ * otherwise parts are returned together, in request order, as {@code {"responses":[...]}}.
+ */
+@Slf4j
+@Component
+public class BatchGatewayFilterFactory extends AbstractGatewayFilterFactory<BatchGatewayFilterFactory.Config> {
+
+    /** Route metadata naming the downstream whose concurrency limit batched sub-requests take. */
+    public static final String DOWNSTREAM_METADATA = "pulseops.batch.downstream";
+
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+
+    private final BatchProperties properties;
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+    // Lazy: the route table is built from this factory's filters
+    private final ObjectProvider<RouteLocator> routeLocator;
+    private final ResponseCache responseCache;
+    private final ConcurrencyLimitGatewayFilterFactory concurrencyLimits;
+    private final RateLimitGatewayFilterFactory rateLimits;
+    private final DistributionSummary batchSizes;
+
+    public BatchGatewayFilterFactory(BatchProperties properties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            WebClient.Builder webClientBuilder,
+            ObjectProvider<RouteLocator> routeLocator,
+            ResponseCache responseCache,
+            ConcurrencyLimitGatewayFilterFactory concurrencyLimits,
+            RateLimitGatewayFilterFactory rateLimits) {
+        super(Config.class);
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.webClient = webClientBuilder.build();
+        this.routeLocator = routeLocator;
+        this.responseCache = responseCache;
+        this.concurrencyLimits = concurrencyLimits;
+        this.rateLimits = rateLimits;
+        this.batchSizes = DistributionSummary.builder("gateway.batch.size")
+                .description("Sub-requests per /api/batch call")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Only reading and validating the body can answer 400; once dispatch starts the response may be committed
+        return (exchange, chain) -> DataBufferUtils.join(exchange.getRequest().getBody(), MAX_BODY_BYTES)
+                .map(this::readRequest)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Request body is required")))
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new IllegalArgumentException("Batch request body exceeds " + MAX_BODY_BYTES + " bytes"))
+                .doOnNext(request -> {
+                    String error = validate(request);
+                    if (error != null) {
+                        throw new IllegalArgumentException(error);
+                    }
+                })
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> badRequest(exchange, e.getMessage()).then(Mono.empty()))
+                .flatMap(request -> {
+                    batchSizes.record(request.getRequests().size());
+                    return dispatch(exchange, request.getRequests());
+                });
+    }
+
+    private BatchRequest readRequest(DataBuffer buffer) {
+        try {
+            return objectMapper.readValue(buffer.asInputStream(true), BatchRequest.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed batch request");
+        }
+    }
+
+    private String validate(BatchRequest request) {
+        List<BatchRequest.Item> items = request.getRequests();
+        if (items == null || items.isEmpty()) {
+            return "requests must not be empty";
+        }
+        if (items.size() > properties.getMaxRequests()) {
+            return "At most " + properties.getMaxRequests() + " requests per batch";
+        }
+        for (BatchRequest.Item item : items) {
+            if (!HttpMethod.GET.name().equalsIgnoreCase(item.getMethod())) {
+                // Writes would need ordering and partial-failure semantics a parallel fan-out can't give
+                return "Only GET sub-requests are supported";
+            }
+            String path = item.getPath();
+            if (path == null || !path.startsWith("/api/") || path.startsWith("/api/batch")
+                    || path.startsWith("/api/stream") || path.startsWith("/api/incidents/export")) {
+                return "Invalid sub-request path: " + path;
+            }
+            try {
+                URI uri = new URI(path);
+                if (uri.getRawAuthority() != null || uri.getScheme() != null) {
+                    return "Invalid sub-request path: " + path;
+                }
+            } catch (URISyntaxException e) {
+                return "Invalid sub-request path: " + path;
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> dispatch(ServerWebExchange exchange, List<BatchRequest.Item> items) {
+        String correlationId = exchange.getRequest().getHeaders().getFirst(CORRELATION_ID_HEADER);
+        Flux<IndexedPart> parts = Flux.range(0, items.size())
+                .flatMap(i -> execute(exchange, items.get(i), i, correlationId), properties.getMaxConcurrency());
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+
+        if (exchange.getRequest().getHeaders().getAccept().contains(MediaType.APPLICATION_NDJSON)) {
+            response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+            return response.writeAndFlushWith(parts.map(part ->
+                    Mono.just(response.bufferFactory().wrap(toJsonLine(part.part())))));
+        }
+
+        return parts.collectList().flatMap(completed -> {
+            BatchResponsePart[] ordered = new BatchResponsePart[items.size()];
+            completed.forEach(part -> ordered[part.index()] = part.part());
+            byte[] bytes = toJson(Map.of("responses", Arrays.asList(ordered)));
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setContentLength(bytes.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        });
+    }
+
+    private Mono<IndexedPart> execute(ServerWebExchange exchange, BatchRequest.Item item, int index,
+            String correlationId) {
+        String id = item.getId() != null ? item.getId() : Integer.toString(index);
+        URI uri = URI.create(item.getPath());
+        String keyId = exchange.getAttribute(ApiKeyGatewayFilterFactory.API_KEY_ID_ATTRIBUTE);
+
+        return findRoute(exchange, uri)
+                .flatMap(route -> {
+                    long waitNanos = rateLimits.tryAcquire(route.getId(), keyId);
+                    if (waitNanos != 0) {
+                        return Mono.just(errorPart(id, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry after "
+                                + RateLimitGatewayFilterFactory.retryAfterSeconds(waitNanos) + " seconds"));
+                    }
+                    CachedResponse cached = responseCache.get(ResponseCache.keyFor(uri));
+                    if (cached != null && cached.isFresh(System.nanoTime())) {
+                        return Mono.just(new BatchResponsePart(id, HttpStatus.OK.value(), bodyAsJson(
+                                cached.contentType() != null ? MediaType.parseMediaType(cached.contentType()) : null,
+                                cached.body())));
+                    }
+                    return send(route, uri, id, correlationId);
+                })
+                .defaultIfEmpty(errorPart(id, HttpStatus.NOT_FOUND, "No route for sub-request path"))
+                .onErrorResume(e -> {
+                    boolean timedOut = e instanceof TimeoutException;
+                    log.warn("Batch sub-request failed. path={}, correlationId={}, error={}",
+                            item.getPath(), correlationId, e.toString());
+                    return Mono.just(timedOut
+                            ? errorPart(id, HttpStatus.GATEWAY_TIMEOUT, "Sub-request failed")
+                            : errorPart(id, HttpStatus.BAD_GATEWAY, "Sub-request failed"));
+                })
+                .map(part -> new IndexedPart(index, part));
+    }
+
+    /**
+     * The route a GET of {@code uri} would take through this gateway, if it can be batched.
+     */
+    private Mono<Route> findRoute(ServerWebExchange exchange, URI uri) {
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .method(HttpMethod.GET)
+                .uri(exchange.getRequest().getURI().resolve(uri))
+                .build();
+        // Predicates cache what they parse in exchange attributes, so the probe must not share the batch's
+        Map<String, Object> attributes = new HashMap<>();
+        ServerWebExchange probe = new ServerWebExchangeDecorator(exchange) {
+            @Override
+            public ServerHttpRequest getRequest() {
+                return request;
+            }
+
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+        };
+        return routeLocator.getObject().getRoutes()
+                .concatMap(route -> Mono.from(route.getPredicate().apply(probe))
+                        .filter(Boolean::booleanValue)
+                        .map(matched -> route))
+                .next()
+                .filter(route -> route.getMetadata().get(DOWNSTREAM_METADATA) != null);
+    }
+
+    private Mono<BatchResponsePart> send(Route route, URI uri, String id, String correlationId) {
+        URI target = UriComponentsBuilder.fromUri(route.getUri())
+                .replacePath(uri.getRawPath())
+                .replaceQuery(uri.getRawQuery())
+                .build(true)
+                .toUri();
+        Mono<BatchResponsePart> call = webClient.get()
+                .uri(target)
+                .header(CORRELATION_ID_HEADER, correlationId != null ? correlationId : "")
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> new BatchResponsePart(id, response.statusCode().value(),
+                                bodyAsJson(response.headers().contentType().orElse(null), body))))
+                .timeout(properties.getTimeout());
+        String downstream = route.getMetadata().get(DOWNSTREAM_METADATA).toString();
+        return concurrencyLimits.limit(route.getId(), downstream, RoutePriority.NORMAL, call,
+                        part -> ConcurrencyLimitGatewayFilterFactory.isOverloadStatus(part.status()))
+                .switchIfEmpty(Mono.fromSupplier(() ->
+                        errorPart(id, HttpStatus.SERVICE_UNAVAILABLE, "Downstream is overloaded, please retry")));
+    }
+
+    private BatchResponsePart errorPart(String id, HttpStatus status, String message) {
+        return new BatchResponsePart(id, status.value(), new String(toJson(error(status, message)), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> error(HttpStatus status, String message) {
+        Map<String, String> error = new LinkedHashMap<>();
+        error.put("error", status.getReasonPhrase());
+        error.put("message", message);
+        return error;
+    }
+
+    private String bodyAsJson(MediaType contentType, byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            return text;
+        }
+        try {
+            return objectMapper.writeValueAsString(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode sub-response body", e);
+        }
+    }
+
+    private byte[] toJsonLine(BatchResponsePart part) {
+        byte[] json = toJson(part);
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize batch response", e);
+        }
+    }
+
+    private Mono<Void> badRequest(ServerWebExchange exchange, String message) {
+        exchange.getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
+        exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+
+        byte[] bytes = toJson(error(HttpStatus.BAD_REQUEST, message));
+        exchange.getResponse().getHeaders().setContentLength(bytes.length);
+
+        return exchange.getResponse()
+                .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    private record IndexedPart(int index, BatchResponsePart part) {
+    }
+
+    public static class Config {
+    }
+}
@@ -0,0 +1,25 @@
+package com.pulseops.gateway.batch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Limits for the {@code /api/batch} multiplexing endpoint.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pulseops.gateway.batch")
+public class BatchProperties {
+
+    /** Maximum sub-requests in one batch. */
+    private int maxRequests = 20;
+
+    /** Sub-requests of one batch dispatched at the same time. */
+    private int maxConcurrency = 8;
+
+    /** Per sub-request timeout; a sub-request that exceeds it is reported with status 504. */
+    private Duration timeout = Duration.ofSeconds(10);
+}
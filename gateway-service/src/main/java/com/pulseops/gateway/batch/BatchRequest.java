@@ -0,0 +1,23 @@
+package com.pulseops.gateway.batch;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/batch}: GET sub-requests against existing gateway routes.
+ */
+@Data
+public class BatchRequest {
+
+    private List<Item> requests;
+
+    @Data
+    public static class Item {
+        /** Caller-chosen id echoed back on the matching response part. */
+        private String id;
+        private String method = "GET";
+        /** Gateway path including any query string, e.g. {@code /api/incidents/123/evidence}. */
+        private String path;
+    }
+}
@@ -0,0 +1,9 @@
+package com.pulseops.gateway.batch;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * Result of one sub-request. {@code body} is already-serialized JSON and is embedded as is.
+ */
+public record BatchResponsePart(String id, int status, @JsonRawValue String body) {
+}
@@ -0,0 +1,12 @@
+package com.pulseops.gateway.cache;
+
+/**
+ * A cached 200 response body. {@code tag} groups entries that are invalidated together
+ * (e.g. everything about one incident), see {@link ResponseCache#tagFor}.
+ */
+public record CachedResponse(byte[] body, String contentType, String tag, long freshUntilNanos) {
+
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - freshUntilNanos < 0;
+    }
+}
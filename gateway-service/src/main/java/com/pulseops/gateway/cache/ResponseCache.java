@@ -0,0 +1,253 @@
+package com.pulseops.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory store for cached GET responses, weighed by body size.
+ *
+ * <p>Entries are tagged by what they describe so domain events, and writes proxied by this gateway,
+ * can drop exactly the affected entries. A tag → keys index makes an invalidation cost proportional to
+ * the entries it drops rather than to the cache size. A key's tag follows from its path, so index
+ * updates for a tag are serialised on that tag's index entry. A fetch that was in flight when an invalidation arrived may have read the old state, so its result
+ * is not stored; the invalidation generation captured at fetch start detects that.
+ *
+ * <p>At most one upstream fetch per cache key runs at a time: concurrent misses and stale hits
+ * attach to the fetch already in flight.
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private static final String INCIDENT_LIST_TAG = "incidents";
+    private static final String ACTIVITY_TAG = "activity";
+    private static final String INCIDENT_TAG_PREFIX = "incident:";
+    private static final String EVIDENCE_TAG_PREFIX = "evidence:";
+
+    private final ResponseCacheProperties properties;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Set<String>> keysByTag = new ConcurrentHashMap<>();
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        long staleNanos = properties.getStaleWhileRevalidate().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSizeBytes())
+                .weigher((String key, CachedResponse value) -> key.length() + value.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return Math.max(0, value.freshUntilNanos() + staleNanos - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((String key, CachedResponse value, RemovalCause cause) -> {
+                    if (key != null && value != null) {
+                        unindex(key, value.tag());
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+        log.info("Gateway response cache: enabled={}, maxSizeBytes={}, staleWhileRevalidate={}, routes={}",
+                properties.isEnabled(), properties.getMaxSizeBytes(), properties.getStaleWhileRevalidate(),
+                properties.getRoutes().keySet());
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Snapshot of the invalidation generation, to be passed back to {@link #put} when the fetch completes.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String key, CachedResponse response, long generationAtFetchStart) {
+        // Checked under the tag's index entry, so an invalidation either sees this entry or has already
+        // moved the generation on
+        keysByTag.compute(response.tag(), (tag, keys) -> {
+            if (generation.get() != generationAtFetchStart) {
+                log.debug("Discarding response fetched across an invalidation. key={}", key);
+                return keys;
+            }
+            Set<String> indexed = keys != null ? keys : new HashSet<>();
+            indexed.add(key);
+            cache.put(key, response);
+            return indexed;
+        });
+    }
+
+    /**
+     * Claims the upstream fetch for a key.
+     *
+     * @return the sink the caller must complete via {@link #finishFetch}, or null if a fetch is already in flight
+     */
+    public Sinks.One<CachedResponse> startFetch(String key) {
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        return inFlight.putIfAbsent(key, sink) == null ? sink : null;
+    }
+
+    /**
+     * @return the result of the fetch in flight for the key (empty if it produced nothing cacheable),
+     *         or null if there is none
+     */
+    public Mono<CachedResponse> inFlight(String key) {
+        Sinks.One<CachedResponse> sink = inFlight.get(key);
+        return sink == null ? null : sink.asMono();
+    }
+
+    public void finishFetch(String key, Sinks.One<CachedResponse> sink, CachedResponse response) {
+        inFlight.remove(key, sink);
+        if (response != null) {
+            sink.tryEmitValue(response);
+        } else {
+            sink.tryEmitEmpty();
+        }
+    }
+
+    /**
+     * Cache key for a request URI: its raw path and query.
+     */
+    public static String keyFor(URI uri) {
+        // Credentials passed as query parameters must not end up in cache keys
+        String query = UriComponentsBuilder.fromUri(uri)
+                .replaceQueryParam("apiKey")
+                .replaceQueryParam("sessionToken")
+                .build()
+                .getQuery();
+        String path = uri.getRawPath();
+        return query == null ? path : path + "?" + query;
+    }
+
+    /**
+     * Invalidation tag for a cacheable path, or null if responses for the path are not cached.
+     */
+    public static String tagFor(String path) {
+        // Counts change whenever the lists do
+        if (path.equals("/api/incidents") || path.equals("/api/incidents/count")) {
+            return INCIDENT_LIST_TAG;
+        }
+        if (path.equals("/api/activity")) {
+            return ACTIVITY_TAG;
+        }
+        if (path.startsWith("/api/incidents/")) {
+            String[] segments = path.substring("/api/incidents/".length()).split("/");
+            if (segments.length == 1 && !segments[0].isEmpty()) {
+                return INCIDENT_TAG_PREFIX + segments[0];
+            }
+            if (segments.length == 2 && segments[1].equals("evidence")) {
+                return EVIDENCE_TAG_PREFIX + segments[0];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An incident changed: its detail, the incident lists and the activity feed are stale.
+     */
+    public void invalidateIncident(String incidentId) {
+        invalidate(List.of(INCIDENT_TAG_PREFIX + incidentId, INCIDENT_LIST_TAG, ACTIVITY_TAG));
+    }
+
+    /**
+     * Evidence was added to an incident: its evidence list and the activity feed are stale.
+     */
+    public void invalidateEvidence(String incidentId) {
+        invalidate(List.of(EVIDENCE_TAG_PREFIX + incidentId, ACTIVITY_TAG));
+    }
+
+    /**
+     * A write to {@code path} succeeded: drops what it changed without waiting for the domain event,
+     * so the writer's next read sees its own write.
+     */
+    public void invalidateAfterWrite(String path) {
+        if (path.equals("/api/incidents")) {
+            invalidate(List.of(INCIDENT_LIST_TAG, ACTIVITY_TAG));
+            return;
+        }
+        if (!path.startsWith("/api/incidents/")) {
+            return;
+        }
+        String[] segments = path.substring("/api/incidents/".length()).split("/");
+        if (segments[0].isEmpty()) {
+            return;
+        }
+        if (segments[0].equals("bulk")) {
+            // Bulk writes don't name their incidents in the path
+            List<String> tags = new ArrayList<>(List.of(INCIDENT_LIST_TAG, ACTIVITY_TAG));
+            keysByTag.keySet().stream().filter(tag -> tag.startsWith(INCIDENT_TAG_PREFIX)).forEach(tags::add);
+            invalidate(tags);
+        } else if (segments.length > 1 && segments[1].equals("evidence")) {
+            invalidateEvidence(segments[0]);
+        } else {
+            invalidateIncident(segments[0]);
+        }
+    }
+
+    private void invalidate(Collection<String> tags) {
+        generation.incrementAndGet();
+        int removed = 0;
+        for (String tag : tags) {
+            int[] count = new int[1];
+            keysByTag.computeIfPresent(tag, (t, keys) -> {
+                // Removal listeners for these keys find no index entry left to update
+                cache.invalidateAll(keys);
+                count[0] = keys.size();
+                return null;
+            });
+            removed += count[0];
+        }
+        meterRegistry.counter("gateway.response.cache.invalidations").increment();
+        if (removed > 0) {
+            log.debug("Invalidated {} cached responses for tags {}", removed, tags);
+        }
+    }
+
+    private void unindex(String key, String tag) {
+        keysByTag.computeIfPresent(tag, (t, keys) -> {
+            // The key may have been cached again since this removal; it is indexed then
+            if (!cache.asMap().containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
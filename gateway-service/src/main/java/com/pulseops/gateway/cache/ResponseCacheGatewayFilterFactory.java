@@ -0,0 +1,214 @@
+package com.pulseops.gateway.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serves GET responses from the shared {@link ResponseCache}. Must be applied after authentication and
+ * rate limiting on the route, and before concurrency limiting so hits don't take a downstream slot.
+ *
+ * <p>A miss is proxied as usual while {@link ResponseCaptureFilter} captures its 200 response body into
+ * the cache. Entries past their TTL but within the stale-while-revalidate window are served immediately
+ * while a single background request refreshes them. Requests arriving while a fetch for the same key is in flight
+ * wait for it instead of going upstream themselves.
+ *
+ * <p>A successful write through the route drops the entries it changed before its response is sent,
+ * so the writer's next read doesn't get the old cached copy while the domain event is still on its way.
+ * Events still invalidate for writes that don't pass through this gateway.
+ */
+@Slf4j
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
+    private static final Set<HttpMethod> WRITE_METHODS =
+            Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final ResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final WebClient webClient;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache responseCache,
+            ResponseCacheProperties properties,
+            MeterRegistry meterRegistry,
+            WebClient.Builder webClientBuilder) {
+        super(Config.class);
+        this.responseCache = responseCache;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.webClient = webClientBuilder.build();
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId();
+        ResponseCacheProperties.RouteSettings settings = properties.getRoutes().get(routeId);
+        if (settings == null) {
+            log.warn("No response cache settings for route {}; responses will not be cached", routeId);
+        }
+
+        return (exchange, chain) -> {
+            if (!properties.isEnabled() || settings == null) {
+                return chain.filter(exchange);
+            }
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (WRITE_METHODS.contains(method)) {
+                invalidateOnSuccess(exchange);
+                return chain.filter(exchange);
+            }
+            if (method != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            String tag = ResponseCache.tagFor(exchange.getRequest().getURI().getPath());
+            if (tag == null) {
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(exchange);
+            CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                if (cached.isFresh(System.nanoTime())) {
+                    record(routeId, "hit");
+                    return write(exchange, cached, "HIT");
+                }
+                record(routeId, "stale");
+                revalidate(exchange, key, tag, settings);
+                return write(exchange, cached, "STALE");
+            }
+
+            Mono<CachedResponse> pending = responseCache.inFlight(key);
+            if (pending != null) {
+                record(routeId, "coalesced");
+                // If the fetch we joined produced nothing cacheable, go upstream ourselves
+                return pending.map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(result -> result.isPresent()
+                                ? write(exchange, result.get(), "HIT")
+                                : chain.filter(exchange));
+            }
+
+            record(routeId, "miss");
+            return fetchThrough(exchange, chain, key, tag, settings);
+        };
+    }
+
+    private Mono<Void> fetchThrough(ServerWebExchange exchange, GatewayFilterChain chain, String key, String tag,
+            ResponseCacheProperties.RouteSettings settings) {
+        Sinks.One<CachedResponse> sink = responseCache.startFetch(key);
+        if (sink == null) {
+            // Lost the race to another miss; just proxy this one
+            return chain.filter(exchange);
+        }
+        exchange.getAttributes().put(ResponseCaptureFilter.CAPTURE_ATTRIBUTE, new ResponseCaptureFilter.Capture(
+                key, tag, settings.getTtl().toNanos(), responseCache.generation(), sink));
+        return chain.filter(exchange);
+    }
+
+    private void invalidateOnSuccess(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getURI().getPath();
+        exchange.getResponse().beforeCommit(() -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (status != null && status.is2xxSuccessful()) {
+                responseCache.invalidateAfterWrite(path);
+            }
+            return Mono.empty();
+        });
+    }
+
+    private void revalidate(ServerWebExchange exchange, String key, String tag,
+            ResponseCacheProperties.RouteSettings settings) {
+        Sinks.One<CachedResponse> sink = responseCache.startFetch(key);
+        if (sink == null) {
+            return;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            responseCache.finishFetch(key, sink, null);
+            return;
+        }
+        URI target = UriComponentsBuilder.fromUri(route.getUri())
+                .replacePath(exchange.getRequest().getURI().getRawPath())
+                .replaceQuery(exchange.getRequest().getURI().getRawQuery())
+                .build(true)
+                .toUri();
+        String correlationId = exchange.getRequest().getHeaders().getFirst(CORRELATION_ID_HEADER);
+        long generation = responseCache.generation();
+
+        webClient.get()
+                .uri(target)
+                .header(CORRELATION_ID_HEADER, correlationId != null ? correlationId : "")
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() != HttpStatus.OK.value()) {
+                        return response.releaseBody().then(Mono.<CachedResponse>empty());
+                    }
+                    String contentType = response.headers().asHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+                    return response.bodyToMono(byte[].class)
+                            .defaultIfEmpty(new byte[0])
+                            .map(body -> new CachedResponse(body, contentType, tag,
+                                    System.nanoTime() + settings.getTtl().toNanos()));
+                })
+                .timeout(properties.getRevalidateTimeout())
+                .filter(response -> response.body().length <= properties.getMaxEntryBytes())
+                .doOnNext(response -> responseCache.put(key, response, generation))
+                .doOnError(e -> log.warn("Background revalidation failed. key={}, error={}", key, e.toString()))
+                .onErrorResume(e -> Mono.empty())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .subscribe(result -> responseCache.finishFetch(key, sink, result.orElse(null)));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        response.getHeaders().set(CACHE_STATUS_HEADER, cacheStatus);
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private String cacheKey(ServerWebExchange exchange) {
+        return ResponseCache.keyFor(exchange.getRequest().getURI());
+    }
+
+    private void record(String routeId, String result) {
+        meterRegistry.counter("gateway.response.cache.requests", "route", routeId, "result", result).increment();
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("routeId");
+    }
+
+    @Data
+    public static class Config {
+        private String routeId;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pulseops.gateway.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared GET response cache settings. Only routes with an entry under {@code routes} are cached.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pulseops.gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /** Total bytes of cached response bodies kept in memory. */
+    private long maxSizeBytes = 64L * 1024 * 1024;
+
+    /** Responses larger than this are passed through without being cached. */
+    private int maxEntryBytes = 1024 * 1024;
+
+    /** How long past its TTL an entry is still served while it is refreshed in the background. */
+    private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+
+    /** Timeout for background revalidation fetches. */
+    private Duration revalidateTimeout = Duration.ofSeconds(5);
+
+    private Map<String, RouteSettings> routes = new HashMap<>();
+
+    @Data
+    public static class RouteSettings {
+        /**
+         * Entries are invalidated by writes through the gateway and by domain events, so the TTL is only a
+         * safety net for missed or late events.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
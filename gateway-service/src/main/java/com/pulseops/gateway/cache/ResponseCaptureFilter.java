@@ -0,0 +1,148 @@
+package com.pulseops.gateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Captures proxied response bodies for {@link ResponseCacheGatewayFilterFactory}.
+ *
+ * <p>The body is written by {@link NettyWriteResponseFilter}, which runs ahead of all route filters and
+ * only sees a response decorated before it. This filter therefore decorates every GET response, but
+ * the decorator only copies a body when the route's cache filter, running later after authentication,
+ * has registered a {@link Capture} for the exchange. The body still streams to the client as it arrives;
+ * the copy is abandoned once it exceeds {@code max-entry-bytes}.
+ */
+@Component
+public class ResponseCaptureFilter implements GlobalFilter, Ordered {
+
+    /** Exchange attribute holding the {@link Capture} for a cache miss being fetched. */
+    static final String CAPTURE_ATTRIBUTE = "pulseops.responseCache.capture";
+
+    private final ResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+
+    public ResponseCaptureFilter(ResponseCache responseCache, ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        // The body is only written once the rest of the chain completes, so the fetch is finished here
+        // rather than in the route's cache filter
+        return chain.filter(exchange.mutate().response(new CapturingResponse(exchange)).build())
+                .doFinally(signal -> {
+                    Capture capture = exchange.getAttribute(CAPTURE_ATTRIBUTE);
+                    if (capture != null) {
+                        responseCache.finishFetch(capture.key, capture.sink, capture.response);
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    /**
+     * A claimed fetch for a cache miss; {@code response} is filled in once the body has been captured.
+     */
+    static class Capture {
+        final String key;
+        final String tag;
+        final long ttlNanos;
+        final long generation;
+        final Sinks.One<CachedResponse> sink;
+        CachedResponse response;
+
+        Capture(String key, String tag, long ttlNanos, long generation, Sinks.One<CachedResponse> sink) {
+            this.key = key;
+            this.tag = tag;
+            this.ttlNanos = ttlNanos;
+            this.generation = generation;
+            this.sink = sink;
+        }
+    }
+
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+
+        CapturingResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Capture capture = exchange.getAttribute(CAPTURE_ATTRIBUTE);
+            if (capture == null || getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()) {
+                return super.writeWith(body);
+            }
+            // Chunks are forwarded as they arrive; a copy is kept only while the body still fits an entry
+            getHeaders().set(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER, "MISS");
+            BoundedCopy copy = new BoundedCopy(properties.getMaxEntryBytes());
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(copy::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = copy.toByteArray();
+                        if (bytes != null) {
+                            capture.response = new CachedResponse(bytes, getHeaders().getFirst(HttpHeaders.CONTENT_TYPE),
+                                    capture.tag, System.nanoTime() + capture.ttlNanos);
+                            responseCache.put(capture.key, capture.response, capture.generation);
+                        }
+                    }));
+        }
+    }
+
+    /** Copies a body up to {@code maxBytes}, then drops what it has and stops copying. */
+    private static final class BoundedCopy {
+
+        private final long maxBytes;
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        BoundedCopy(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void append(DataBuffer buffer) {
+            if (bytes == null) {
+                return;
+            }
+            int size = buffer.readableByteCount();
+            if (bytes.size() + (long) size > maxBytes) {
+                bytes = null;
+                return;
+            }
+            // Read without consuming: the buffer still has to be written to the client
+            int position = buffer.readPosition();
+            byte[] chunk = new byte[size];
+            buffer.read(chunk);
+            buffer.readPosition(position);
+            bytes.write(chunk, 0, size);
+        }
+
+        /** The whole body, or null if it outgrew {@code maxBytes}. */
+        byte[] toByteArray() {
+            return bytes != null ? bytes.toByteArray() : null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.pulseops.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-style adaptive concurrency limit for one downstream service.
+ *
+ * <p>A long-term latency average approximates the downstream's no-load latency. Each completed request
+ * compares its latency with it: while latency stays within tolerance the limit grows by roughly
+ * {@code sqrt(limit)}, and as queueing inflates latency the gradient drops below one and pulls the limit
+ * down proportionally. Failures and timeouts apply a multiplicative decrease.
+ *
+ * <p>Admission is a lock-free CAS on the in-flight count; only limit updates are synchronized.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * @return true if the request was admitted and must later call {@link #release}
+     */
+    public boolean tryAcquire(RoutePriority priority) {
+        int admitted = Math.max(1, (int) (limit * priority.limitShare()));
+        while (true) {
+            int current = inflight.get();
+            if (current >= admitted) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Whether a request of this priority would currently be admitted, without taking a slot.
+     */
+    public boolean hasCapacity(RoutePriority priority) {
+        return inflight.get() < Math.max(1, (int) (limit * priority.limitShare()));
+    }
+
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    public synchronized void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+        double current = limit;
+        if (dropped) {
+            limit = Math.max(properties.getMinLimit(), current * properties.getBackoffRatio());
+            return;
+        }
+
+        longRttNanos = longRttNanos == 0
+                ? rttNanos
+                : longRttNanos + (rttNanos - longRttNanos) / properties.getLongWindow();
+
+        double gradient = Math.max(MIN_GRADIENT,
+                Math.min(1.0, properties.getRttTolerance() * longRttNanos / Math.max(1, rttNanos)));
+
+        // Don't grow the limit while the downstream isn't actually being pushed towards it
+        if (gradient >= 1.0 && inflightAtStart * 2 < current) {
+            return;
+        }
+
+        double estimate = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), smoothed));
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+}
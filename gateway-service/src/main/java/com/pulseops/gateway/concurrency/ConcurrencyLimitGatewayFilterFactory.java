@@ -0,0 +1,203 @@
+package com.pulseops.gateway.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Adaptive concurrency limiting and load shedding per downstream service.
+ * Routes to the same downstream share one {@link AdaptiveConcurrencyLimiter}; each route's
+ * {@link RoutePriority} decides how much of the limit it may use, so low-priority traffic is shed first.
+ * Streaming routes are admission-checked only: a long-lived stream would otherwise hold a slot
+ * indefinitely and its duration would be mistaken for downstream latency.
+ *
+ * <p>The limit is deliberately per downstream, since that is what saturates, so
+ * {@code gateway.concurrency.limit} and {@code gateway.concurrency.inflight} are tagged by downstream only.
+ * To show which route is using or being refused the capacity, {@code gateway.concurrency.shed} is tagged
+ * with the route as well and {@code gateway.concurrency.route.inflight} counts each route's share.
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inflightByRoute = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitGatewayFilterFactory(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String downstream = config.getDownstream();
+        RoutePriority priority = config.getPriority();
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(downstream, this::createLimiter);
+
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = routeId(exchange);
+            if (config.isStreaming()) {
+                if (!limiter.hasCapacity(priority)) {
+                    return shed(exchange, routeId, downstream, priority);
+                }
+                return chain.filter(exchange);
+            }
+
+            if (!limiter.tryAcquire(priority)) {
+                return shed(exchange, routeId, downstream, priority);
+            }
+
+            AtomicInteger routeInflight = routeInflight(routeId, downstream);
+            routeInflight.incrementAndGet();
+            int inflightAtStart = limiter.getInflight();
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        limiter.release();
+                        routeInflight.decrementAndGet();
+                        // A cancelled request says nothing about downstream latency
+                        if (signal != SignalType.CANCEL) {
+                            limiter.onSample(System.nanoTime() - start, inflightAtStart,
+                                    signal == SignalType.ON_ERROR || isOverloadStatus(exchange.getResponse().getStatusCode()));
+                        }
+                    });
+        };
+    }
+
+    /**
+     * Runs a call that bypasses the route filters (e.g. a batch sub-request) under the downstream's limiter,
+     * counted against {@code routeId} as if it had gone through that route.
+     * Completes empty without subscribing to {@code call} when the request is shed.
+     */
+    public <T> Mono<T> limit(String routeId, String downstream, RoutePriority priority, Mono<T> call,
+            Predicate<T> overloaded) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(downstream, this::createLimiter);
+            if (!limiter.tryAcquire(priority)) {
+                countShed(routeId, downstream, priority);
+                return Mono.empty();
+            }
+            AtomicInteger routeInflight = routeInflight(routeId, downstream);
+            routeInflight.incrementAndGet();
+            int inflightAtStart = limiter.getInflight();
+            long start = System.nanoTime();
+            AtomicBoolean dropped = new AtomicBoolean();
+            return call
+                    .doOnNext(result -> dropped.set(overloaded.test(result)))
+                    .doFinally(signal -> {
+                        limiter.release();
+                        routeInflight.decrementAndGet();
+                        if (signal != SignalType.CANCEL) {
+                            limiter.onSample(System.nanoTime() - start, inflightAtStart,
+                                    signal == SignalType.ON_ERROR || dropped.get());
+                        }
+                    });
+        });
+    }
+
+    private AdaptiveConcurrencyLimiter createLimiter(String downstream) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .description("Requests currently in flight to the downstream")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        log.info("Created adaptive concurrency limiter for {}: initialLimit={}, minLimit={}, maxLimit={}",
+                downstream, properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit());
+        return limiter;
+    }
+
+    private AtomicInteger routeInflight(String routeId, String downstream) {
+        return inflightByRoute.computeIfAbsent(routeId, id -> {
+            AtomicInteger inflight = new AtomicInteger();
+            Gauge.builder("gateway.concurrency.route.inflight", inflight, AtomicInteger::get)
+                    .description("Requests the route currently has in flight to its downstream")
+                    .tag("route", id)
+                    .tag("downstream", downstream)
+                    .register(meterRegistry);
+            return inflight;
+        });
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    private void countShed(String routeId, String downstream, RoutePriority priority) {
+        meterRegistry.counter("gateway.concurrency.shed",
+                "route", routeId, "downstream", downstream, "priority", priority.name()).increment();
+    }
+
+    private boolean isOverloadStatus(HttpStatusCode status) {
+        return status != null && isOverloadStatus(status.value());
+    }
+
+    public static boolean isOverloadStatus(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    private Mono<Void> shed(ServerWebExchange exchange, String routeId, String downstream, RoutePriority priority) {
+        countShed(routeId, downstream, priority);
+        log.debug("Shedding request. route={}, downstream={}, priority={}, path={}",
+                routeId, downstream, priority, exchange.getRequest().getURI().getPath());
+
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+
+        byte[] bytes = "{\"error\":\"Service Unavailable\",\"message\":\"Downstream is overloaded, please retry\"}"
+                .getBytes();
+        exchange.getResponse().getHeaders().setContentLength(bytes.length);
+
+        return exchange.getResponse()
+                .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("downstream", "priority", "streaming");
+    }
+
+    @Data
+    public static class Config {
+        private String downstream;
+        private RoutePriority priority = RoutePriority.NORMAL;
+        private boolean streaming = false;
+    }
+}
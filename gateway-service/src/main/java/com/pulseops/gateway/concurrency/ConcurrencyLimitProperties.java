@@ -0,0 +1,34 @@
+package com.pulseops.gateway.concurrency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the per-downstream adaptive concurrency limiters.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pulseops.gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private int initialLimit = 50;
+
+    private int minLimit = 5;
+
+    private int maxLimit = 1000;
+
+    /** How far the current latency may exceed the no-load latency before the limit shrinks. */
+    private double rttTolerance = 1.5;
+
+    /** Weight of each new limit estimate; lower values react more slowly. */
+    private double smoothing = 0.2;
+
+    /** Number of samples the long-term (no-load) latency average spans. */
+    private int longWindow = 600;
+
+    /** Multiplicative decrease applied when the downstream fails or times out. */
+    private double backoffRatio = 0.9;
+}
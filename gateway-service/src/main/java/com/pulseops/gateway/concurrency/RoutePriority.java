@@ -0,0 +1,21 @@
+package com.pulseops.gateway.concurrency;
+
+/**
+ * Share of a downstream's concurrency limit a route may use. When the downstream saturates,
+ * lower priorities hit their share first and are shed while higher priorities are still admitted.
+ */
+public enum RoutePriority {
+    LOW(0.7),
+    NORMAL(0.9),
+    CRITICAL(1.0);
+
+    private final double limitShare;
+
+    RoutePriority(double limitShare) {
+        this.limitShare = limitShare;
+    }
+
+    public double limitShare() {
+        return limitShare;
+    }
+}
@@ -1,9 +1,17 @@
 package com.pulseops.gateway.config;
 
+import com.pulseops.gateway.batch.BatchGatewayFilterFactory;
+import com.pulseops.gateway.cache.ResponseCacheGatewayFilterFactory;
+import com.pulseops.gateway.concurrency.ConcurrencyLimitGatewayFilterFactory;
+import com.pulseops.gateway.concurrency.RoutePriority;
 import com.pulseops.gateway.filter.ApiKeyGatewayFilterFactory;
+import com.pulseops.gateway.ratelimit.RateLimitGatewayFilterFactory;
+import com.pulseops.gateway.streaming.StreamLimitGatewayFilterFactory;
+import com.pulseops.gateway.streaming.StreamingResponseFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +21,11 @@ import org.springframework.context.annotation.Configuration;
 public class GatewayConfig {
 
     private final ApiKeyGatewayFilterFactory apiKeyFilterFactory;
+    private final RateLimitGatewayFilterFactory rateLimitFilterFactory;
+    private final ConcurrencyLimitGatewayFilterFactory concurrencyLimitFilterFactory;
+    private final ResponseCacheGatewayFilterFactory responseCacheFilterFactory;
+    private final StreamLimitGatewayFilterFactory streamLimitFilterFactory;
+    private final BatchGatewayFilterFactory batchFilterFactory;
 
     @Value("${secrets.service.url:http://localhost:8081}")
     private String secretsServiceUrl;
@@ -26,8 +39,18 @@ public class GatewayConfig {
     @Value("${activity.service.url:http://localhost:8084}")
     private String activityServiceUrl;
 
-    public GatewayConfig(ApiKeyGatewayFilterFactory apiKeyFilterFactory) {
+    public GatewayConfig(ApiKeyGatewayFilterFactory apiKeyFilterFactory,
+            RateLimitGatewayFilterFactory rateLimitFilterFactory,
+            ConcurrencyLimitGatewayFilterFactory concurrencyLimitFilterFactory,
+            ResponseCacheGatewayFilterFactory responseCacheFilterFactory,
+            StreamLimitGatewayFilterFactory streamLimitFilterFactory,
+            BatchGatewayFilterFactory batchFilterFactory) {
         this.apiKeyFilterFactory = apiKeyFilterFactory;
+        this.rateLimitFilterFactory = rateLimitFilterFactory;
+        this.concurrencyLimitFilterFactory = concurrencyLimitFilterFactory;
+        this.responseCacheFilterFactory = responseCacheFilterFactory;
+        this.streamLimitFilterFactory = streamLimitFilterFactory;
+        this.batchFilterFactory = batchFilterFactory;
     }
 
     @Bean
@@ -46,21 +69,46 @@ public class GatewayConfig {
         ApiKeyGatewayFilterFactory.Config skipApiKeyConfig = new ApiKeyGatewayFilterFactory.Config();
         skipApiKeyConfig.setSkipValidation(true);
         
+        // Rate limiting is keyed by the API key id, so it is added after the API key filter on each route.
+        // Cached GETs are served before concurrency limiting so hits don't take a downstream slot.
+        // Concurrency limiting comes last so its latency samples measure the downstream, not authentication.
+        // SSE and key issuance are CRITICAL so they are the last to be shed.
         return builder.routes()
                 // Evidence by incident - must come BEFORE incident-service routes
                 .route("evidence-by-incident", r -> r
                         .path("/api/incidents/*/evidence", "/api/incidents/*/evidence/**")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("evidence-by-incident")))
+                                .filter(responseCacheFilterFactory.apply(responseCache("evidence-by-incident")))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("evidence-service", RoutePriority.NORMAL))))
+                        .metadata(BatchGatewayFilterFactory.DOWNSTREAM_METADATA, "evidence-service")
                         .uri(evidenceServiceUrl))
                 
+                // Incident export - must come BEFORE incident-service routes. Not cached, and the response
+                // can run for minutes, so it is handled like a stream and shed before interactive traffic
+                .route("incident-export", r -> r
+                        .path("/api/incidents/export")
+                        .and().method("GET")
+                        .filters(f -> f
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("incident-export")))
+                                .filter(concurrencyLimitFilterFactory.apply(streamingConcurrencyLimit("incident-service", RoutePriority.LOW))))
+                        .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, -1)
+                        .metadata(StreamingResponseFilter.STREAMING_METADATA, true)
+                        .uri(incidentServiceUrl))
+
                 // Incident Service Routes - API Key Required
                 .route("incident-service", r -> r
                         .path("/api/incidents/**")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("incident-service")))
+                                .filter(responseCacheFilterFactory.apply(responseCache("incident-service")))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("incident-service", RoutePriority.NORMAL))))
+                        .metadata(BatchGatewayFilterFactory.DOWNSTREAM_METADATA, "incident-service")
                         .uri(incidentServiceUrl))
                 
                 // Evidence Service Routes - API Key Required
@@ -68,7 +116,10 @@ public class GatewayConfig {
                         .path("/api/evidence/**")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("evidence-service")))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("evidence-service", RoutePriority.NORMAL))))
+                        .metadata(BatchGatewayFilterFactory.DOWNSTREAM_METADATA, "evidence-service")
                         .uri(evidenceServiceUrl))
                 
                 // Activity Service Routes - API Key Required
@@ -76,23 +127,46 @@ public class GatewayConfig {
                         .path("/api/activity/**")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("activity-service")))
+                                .filter(responseCacheFilterFactory.apply(responseCache("activity-service")))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("activity-service", RoutePriority.NORMAL))))
+                        .metadata(BatchGatewayFilterFactory.DOWNSTREAM_METADATA, "activity-service")
                         .uri(activityServiceUrl))
                 
                 // Activity Service SSE Stream - API Key Required
                 .route("activity-stream", r -> r
                         .path("/api/stream")
                         .filters(f -> f
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("activity-stream")))
+                                .filter(streamLimitFilterFactory.apply(new StreamLimitGatewayFilterFactory.Config()))
+                                .filter(concurrencyLimitFilterFactory.apply(streamingConcurrencyLimit("activity-service", RoutePriority.CRITICAL))))
+                        // The global response timeout would cut the stream between heartbeats;
+                        // StreamingResponseFilter closes it on idleness instead
+                        .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, -1)
+                        .metadata(StreamingResponseFilter.STREAMING_METADATA, true)
                         .uri(activityServiceUrl))
                 
+                // Batch of GET sub-requests - API Key Required. The batch filter answers the request itself;
+                // sub-requests go straight to the downstream of the routes above that carry batch metadata
+                .route("batch", r -> r
+                        .path("/api/batch")
+                        .and().method("POST")
+                        .filters(f -> f
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("batch")))
+                                .filter(batchFilterFactory.apply(new BatchGatewayFilterFactory.Config())))
+                        .uri("no://op"))
+                
                 // Secrets Service - Key Issuance (POST /api/keys) - No API Key Required
                 .route("secrets-service-keys", r -> r
                         .path("/api/keys")
                         .and().method("POST")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(skipApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(skipApiKeyConfig))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("secrets-service", RoutePriority.CRITICAL))))
                         .uri(secretsServiceUrl))
                 
                 // Secrets Service - List Keys (GET /api/keys) - No API Key Required (returns metadata only)
@@ -100,15 +174,19 @@ public class GatewayConfig {
                         .path("/api/keys")
                         .and().method("GET")
                         .filters(f -> f
-                                .filter(apiKeyFilterFactory.apply(skipApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(skipApiKeyConfig))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("secrets-service", RoutePriority.LOW))))
                         .uri(secretsServiceUrl))
                 
-                // Secrets Service - Other Key Routes - API Key Required
+                // Secrets Service - Other Key Routes - API Key Required. Revocation is further limited by
+                // secrets-service to the key itself or the admin token
                 .route("secrets-service-keys-other", r -> r
                         .path("/api/keys/**")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("secrets-service-keys-other")))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("secrets-service", RoutePriority.NORMAL))))
                         .uri(secretsServiceUrl))
                 
                 // Secrets Service - Internal Routes - API Key Required
@@ -116,9 +194,36 @@ public class GatewayConfig {
                         .path("/internal/**")
                         .filters(f -> f
                                 .stripPrefix(0)
-                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig)))
+                                .filter(apiKeyFilterFactory.apply(requireApiKeyConfig))
+                                .filter(rateLimitFilterFactory.apply(rateLimit("secrets-service-internal")))
+                                .filter(concurrencyLimitFilterFactory.apply(concurrencyLimit("secrets-service", RoutePriority.NORMAL))))
                         .uri(secretsServiceUrl))
                 
                 .build();
     }
+
+    private RateLimitGatewayFilterFactory.Config rateLimit(String routeId) {
+        RateLimitGatewayFilterFactory.Config config = new RateLimitGatewayFilterFactory.Config();
+        config.setRouteId(routeId);
+        return config;
+    }
+
+    private ResponseCacheGatewayFilterFactory.Config responseCache(String routeId) {
+        ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setRouteId(routeId);
+        return config;
+    }
+
+    private ConcurrencyLimitGatewayFilterFactory.Config concurrencyLimit(String downstream, RoutePriority priority) {
+        ConcurrencyLimitGatewayFilterFactory.Config config = new ConcurrencyLimitGatewayFilterFactory.Config();
+        config.setDownstream(downstream);
+        config.setPriority(priority);
+        return config;
+    }
+
+    private ConcurrencyLimitGatewayFilterFactory.Config streamingConcurrencyLimit(String downstream, RoutePriority priority) {
+        ConcurrencyLimitGatewayFilterFactory.Config config = concurrencyLimit(downstream, priority);
+        config.setStreaming(true);
+        return config;
+    }
 }
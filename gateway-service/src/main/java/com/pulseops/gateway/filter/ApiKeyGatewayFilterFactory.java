@@ -1,20 +1,28 @@
 package com.pulseops.gateway.filter;
 
+import com.pulseops.gateway.auth.ApiKeyVerification;
+import com.pulseops.gateway.auth.ApiKeyVerificationCache;
+import com.pulseops.gateway.auth.SecretsServiceClient;
+import com.pulseops.gateway.auth.SessionTokenService;
+import com.pulseops.gateway.auth.SingleFlight;
+import com.pulseops.gateway.auth.VerificationResilienceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -22,14 +30,39 @@ public class ApiKeyGatewayFilterFactory extends AbstractGatewayFilterFactory<Api
 
     private static final String API_KEY_HEADER = "X-API-Key";
     private static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
-    
-    private final WebClient webClient;
-
-    public ApiKeyGatewayFilterFactory(WebClient.Builder webClientBuilder,
-            @Value("${secrets.service.url:http://localhost:8081}") String secretsServiceUrl) {
+    private static final String SESSION_TOKEN_HEADER = "X-Session-Token";
+    /** Id of the key that authenticated the request, for downstream authorization (e.g. key revocation). */
+    private static final String AUTHENTICATED_KEY_ID_HEADER = "X-Authenticated-Key-Id";
+    private static final String SESSION_TOKEN_EXPIRES_HEADER = "X-Session-Token-Expires";
+    private static final String SESSION_TOKEN_PARAM = "sessionToken";
+
+    /** Exchange attribute holding the authenticated API key id, for filters that run after authentication. */
+    public static final String API_KEY_ID_ATTRIBUTE = "pulseops.apiKeyId";
+
+    private final SecretsServiceClient secretsServiceClient;
+    private final ApiKeyVerificationCache verificationCache;
+    private final SessionTokenService sessionTokenService;
+    private final SingleFlight<String, ApiKeyVerification> inFlightVerifications;
+    private final VerificationResilienceProperties resilience;
+    private final MeterRegistry meterRegistry;
+
+    public ApiKeyGatewayFilterFactory(SecretsServiceClient secretsServiceClient,
+            ApiKeyVerificationCache verificationCache,
+            SessionTokenService sessionTokenService,
+            VerificationResilienceProperties resilience,
+            MeterRegistry meterRegistry) {
         super(Config.class);
-        log.info("Initializing ApiKeyGatewayFilterFactory with secrets service URL: {}", secretsServiceUrl);
-        this.webClient = webClientBuilder.baseUrl(secretsServiceUrl).build();
+        this.secretsServiceClient = secretsServiceClient;
+        this.verificationCache = verificationCache;
+        this.sessionTokenService = sessionTokenService;
+        this.resilience = resilience;
+        this.meterRegistry = meterRegistry;
+        this.inFlightVerifications = new SingleFlight<>(Counter.builder("gateway.apikey.verification.coalesced")
+                .description("Key verifications that joined an in-flight call instead of issuing their own")
+                .register(meterRegistry));
+        Gauge.builder("gateway.apikey.verification.inflight", inFlightVerifications, SingleFlight::inFlightCount)
+                .description("Distinct keys currently being verified against secrets-service")
+                .register(meterRegistry);
     }
 
     @Override
@@ -37,7 +70,7 @@ public class ApiKeyGatewayFilterFactory extends AbstractGatewayFilterFactory<Api
         return (exchange, chain) -> {
             // Skip validation if configured to do so (e.g., for key issuance endpoint)
             if (config.isSkipValidation()) {
-                return chain.filter(exchange);
+                return chain.filter(withKeyId(exchange, null));
             }
 
             String path = exchange.getRequest().getURI().getPath();
@@ -47,7 +80,24 @@ public class ApiKeyGatewayFilterFactory extends AbstractGatewayFilterFactory<Api
             // Skip validation for POST /api/keys (key issuance)
             if (path.equals("/api/keys") && method.equals("POST")) {
                 log.debug("Skipping API key validation for key issuance endpoint. correlationId={}", correlationId);
-                return chain.filter(exchange);
+                return chain.filter(withKeyId(exchange, null));
+            }
+
+            // A valid session token authenticates without a round-trip to secrets-service
+            String sessionToken = extractSessionToken(exchange);
+            if (sessionToken != null && sessionTokenService.isEnabled()) {
+                SessionTokenService.VerifiedToken verified = sessionTokenService.verify(sessionToken);
+                if (verified != null) {
+                    log.debug("Session token accepted. path={}, keyId={}, correlationId={}",
+                            path, verified.keyId(), correlationId);
+                    exchange.getAttributes().put(API_KEY_ID_ATTRIBUTE, verified.keyId());
+                    // Renewed before it lapses, so the client needn't fall back to its API key
+                    if (sessionTokenService.needsRenewal(verified)) {
+                        setSessionToken(exchange, sessionTokenService.issue(verified.keyId(), verified.keyExpiresAt()));
+                    }
+                    return chain.filter(withKeyId(exchange, verified.keyId()));
+                }
+                log.debug("Session token rejected, falling back to API key. path={}, correlationId={}", path, correlationId);
             }
 
             // Extract API key from header, fallback to query parameter
@@ -61,32 +111,110 @@ public class ApiKeyGatewayFilterFactory extends AbstractGatewayFilterFactory<Api
                 return unauthorized(exchange, "API key is required");
             }
 
-            // Validate API key with Secrets service
+            // Validate API key with Secrets service. Only verification failures map to 503; errors from
+            // the route itself must reach the error handler untouched
             return validateApiKey(apiKey, correlationId)
-                    .flatMap(valid -> {
-                        if (valid) {
+                    .map(Optional::of)
+                    .onErrorResume(e -> {
+                        // The key may well be valid; a 401 here would log out every client during a secrets-service blip
+                        log.error("Error validating API key. path={}, correlationId={}, error={}",
+                                path, correlationId, e.toString());
+                        return Mono.just(Optional.empty());
+                    })
+                    .flatMap(result -> {
+                        if (result.isEmpty()) {
+                            return serviceUnavailable(exchange, "Unable to validate API key, please retry");
+                        }
+                        ApiKeyVerification verification = result.get();
+                        if (verification.valid()) {
                             log.debug("API key validated successfully. path={}, correlationId={}", path, correlationId);
-                            return chain.filter(exchange);
+                            if (verification.keyId() != null) {
+                                exchange.getAttributes().put(API_KEY_ID_ATTRIBUTE, verification.keyId());
+                                issueSessionToken(exchange, verification);
+                            }
+                            return chain.filter(withKeyId(exchange, verification.keyId()));
                         } else {
                             log.warn("Invalid API key. path={}, correlationId={}", path, correlationId);
                             return unauthorized(exchange, "Invalid API key");
                         }
-                    })
-                    .onErrorResume(e -> {
-                        log.error("Error validating API key. path={}, correlationId={}", path, correlationId, e);
-                        return unauthorized(exchange, "Unable to validate API key");
                     });
         };
     }
 
-    private Mono<Boolean> validateApiKey(String apiKey, String correlationId) {
-        return webClient.post()
-                .uri("/internal/verify")
-                .header(CORRELATION_ID_HEADER, correlationId != null ? correlationId : "")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(new VerifyKeyRequest(apiKey))
-                .exchangeToMono(response -> Mono.just(response.statusCode().is2xxSuccessful()))
-                .onErrorReturn(false);
+    private Mono<ApiKeyVerification> validateApiKey(String apiKey, String correlationId) {
+        String keyHash = ApiKeyVerificationCache.hashKey(apiKey);
+        ApiKeyVerification cached = verificationCache.get(keyHash);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        // Concurrent requests with the same key share one round-trip (carrying the first caller's correlation id).
+        // Only definitive answers are cached; transport errors, timeouts and an open circuit go to the degraded path
+        return inFlightVerifications.execute(keyHash, hash -> secretsServiceClient.verify(apiKey, correlationId)
+                        .doOnNext(verification -> verificationCache.put(hash, verification)))
+                .onErrorResume(e -> degradedVerification(keyHash, e));
+    }
+
+    private Mono<ApiKeyVerification> degradedVerification(String keyHash, Throwable error) {
+        if (resilience.getDegraded().getMode() == VerificationResilienceProperties.DegradedMode.TRUST_RECENT) {
+            ApiKeyVerification recent = verificationCache.getRecentlyVerified(keyHash);
+            if (recent != null) {
+                meterRegistry.counter("gateway.apikey.verification.degraded", "result", "trusted").increment();
+                return Mono.just(recent);
+            }
+        }
+        meterRegistry.counter("gateway.apikey.verification.degraded", "result", "rejected").increment();
+        return Mono.error(error);
+    }
+
+    /**
+     * The exchange to pass on, carrying the verified key id. A client-supplied value is always dropped.
+     */
+    private static ServerWebExchange withKeyId(ServerWebExchange exchange, String keyId) {
+        return exchange.mutate()
+                .request(request -> request.headers(headers -> {
+                    headers.remove(AUTHENTICATED_KEY_ID_HEADER);
+                    if (keyId != null) {
+                        headers.set(AUTHENTICATED_KEY_ID_HEADER, keyId);
+                    }
+                }))
+                .build();
+    }
+
+    private String extractSessionToken(ServerWebExchange exchange) {
+        String token = exchange.getRequest().getHeaders().getFirst(SESSION_TOKEN_HEADER);
+        if (token == null || token.isBlank()) {
+            // EventSource cannot set headers, so /api/stream passes the token as a query parameter
+            token = exchange.getRequest().getQueryParams().getFirst(SESSION_TOKEN_PARAM);
+        }
+        return token == null || token.isBlank() ? null : token;
+    }
+
+    private void issueSessionToken(ServerWebExchange exchange, ApiKeyVerification verification) {
+        if (!sessionTokenService.isEnabled()) {
+            return;
+        }
+        setSessionToken(exchange, sessionTokenService.issue(verification.keyId(), verification.expiresAt()));
+    }
+
+    private static void setSessionToken(ServerWebExchange exchange, SessionTokenService.IssuedToken token) {
+        // Headers must be set before the response is committed by the downstream call
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.set(SESSION_TOKEN_HEADER, token.token());
+        headers.set(SESSION_TOKEN_EXPIRES_HEADER, Long.toString(token.expiresAt().getEpochSecond()));
+    }
+
+    private Mono<Void> serviceUnavailable(ServerWebExchange exchange, String message) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+
+        String body = String.format("{\"error\":\"Service Unavailable\",\"message\":\"%s\"}", message);
+        byte[] bytes = body.getBytes();
+        exchange.getResponse().getHeaders().setContentLength(bytes.length);
+
+        return exchange.getResponse()
+                .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
     }
 
     private Mono<Void> unauthorized(ServerWebExchange exchange, String message) {
@@ -110,9 +238,4 @@ public class ApiKeyGatewayFilterFactory extends AbstractGatewayFilterFactory<Api
     public static class Config {
         private boolean skipValidation = false;
     }
-
-    @Data
-    private static class VerifyKeyRequest {
-        private final String apiKey;
-    }
 }
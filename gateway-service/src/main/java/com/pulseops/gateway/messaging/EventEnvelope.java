@@ -0,0 +1,25 @@
+package com.pulseops.gateway.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventEnvelope {
+
+    private String eventId;
+    private String type;
+    private Instant occurredAt;
+    private String producer;
+    private String correlationId;
+    private String entityId;
+    private String incidentId;
+    private Map<String, Object> payload;
+}
@@ -0,0 +1,45 @@
+package com.pulseops.gateway.messaging;
+
+import com.pulseops.gateway.auth.ApiKeyVerificationCache;
+import com.pulseops.gateway.auth.SessionTokenService;
+import com.pulseops.gateway.cache.ResponseCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaEventListener {
+
+    private final ApiKeyVerificationCache verificationCache;
+    private final SessionTokenService sessionTokenService;
+    private final ResponseCache responseCache;
+
+    private static final Set<String> KEY_REVOCATION_EVENT_TYPES = Set.of(
+            "apikey.revoked",
+            "apikey.deactivated",
+            "apikey.expired"
+    );
+
+    @KafkaListener(
+            topics = "${pulseops.kafka.topic.domain-events}",
+            groupId = "${pulseops.kafka.consumer.group-id}",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void handleDomainEvent(@Payload EventEnvelope event) {
+        if (KEY_REVOCATION_EVENT_TYPES.contains(event.getType())) {
+            log.info("Received key revocation event: type={}, keyId={}", event.getType(), event.getEntityId());
+            verificationCache.evictKeyId(event.getEntityId());
+            sessionTokenService.revokeKeyId(event.getEntityId());
+        } else if (event.getType() != null && event.getType().startsWith("incident.")) {
+            responseCache.invalidateIncident(event.getIncidentId());
+        } else if ("evidence.uploaded".equals(event.getType())) {
+            responseCache.invalidateEvidence(event.getIncidentId());
+        }
+    }
+}
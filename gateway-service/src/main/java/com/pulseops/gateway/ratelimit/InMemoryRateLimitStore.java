@@ -0,0 +1,72 @@
+package com.pulseops.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free in-memory token buckets using the generic cell rate algorithm (GCRA).
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next request,
+ * updated with one CAS, so an acquire on an existing bucket does not allocate or block.
+ * Buckets that have fully refilled carry no state and are swept periodically.
+ */
+@Slf4j
+@Component
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final Map<String, Map<String, AtomicLong>> bucketsByRoute = new ConcurrentHashMap<>();
+
+    public InMemoryRateLimitStore(MeterRegistry meterRegistry) {
+        Gauge.builder("gateway.ratelimit.buckets", this, InMemoryRateLimitStore::bucketCount)
+                .description("Token buckets currently held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long tryAcquire(String routeId, String keyId, RateLimit limit) {
+        AtomicLong theoreticalArrival = bucket(routeId, keyId);
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + limit.emissionIntervalNanos();
+            long excess = next - now - limit.burstToleranceNanos();
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pulseops.gateway.rate-limit.sweep-interval-ms:60000}")
+    public void sweepIdleBuckets() {
+        long now = System.nanoTime();
+        int before = bucketCount();
+        // A bucket whose arrival time has passed is full; dropping it is indistinguishable from keeping it
+        bucketsByRoute.values().forEach(buckets -> buckets.values().removeIf(tat -> tat.get() <= now));
+        log.debug("Swept idle rate limit buckets: before={}, after={}", before, bucketCount());
+    }
+
+    private AtomicLong bucket(String routeId, String keyId) {
+        Map<String, AtomicLong> buckets = bucketsByRoute.get(routeId);
+        if (buckets == null) {
+            buckets = bucketsByRoute.computeIfAbsent(routeId, r -> new ConcurrentHashMap<>());
+        }
+        AtomicLong bucket = buckets.get(keyId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(keyId, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        return bucket;
+    }
+
+    private int bucketCount() {
+        return bucketsByRoute.values().stream().mapToInt(Map::size).sum();
+    }
+}
@@ -0,0 +1,18 @@
+package com.pulseops.gateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket expressed as GCRA parameters: one token every {@code emissionIntervalNanos},
+ * with up to {@code burstCapacity} tokens available at once.
+ */
+public record RateLimit(long emissionIntervalNanos, long burstToleranceNanos) {
+
+    public static RateLimit of(double replenishRatePerSecond, int burstCapacity) {
+        if (replenishRatePerSecond <= 0 || burstCapacity <= 0) {
+            throw new IllegalArgumentException("Rate limit replenish-rate and burst-capacity must be positive");
+        }
+        long emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / replenishRatePerSecond);
+        return new RateLimit(emissionInterval, emissionInterval * burstCapacity);
+    }
+}
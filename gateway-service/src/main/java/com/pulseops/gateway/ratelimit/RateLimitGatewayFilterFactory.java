@@ -0,0 +1,118 @@
+package com.pulseops.gateway.ratelimit;
+
+import com.pulseops.gateway.filter.ApiKeyGatewayFilterFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-API-key token bucket rate limiting. Must be applied after {@link ApiKeyGatewayFilterFactory}
+ * on the route, since it limits by the key id that filter records on the exchange.
+ */
+@Slf4j
+@Component
+public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+
+    private final RateLimitStore rateLimitStore;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitGatewayFilterFactory(RateLimitStore rateLimitStore,
+            RateLimitProperties properties,
+            MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.rateLimitStore = rateLimitStore;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId();
+        RateLimit limit = properties.limitFor(routeId);
+        log.info("Rate limiting route {}: emissionIntervalNanos={}, burstToleranceNanos={}",
+                routeId, limit.emissionIntervalNanos(), limit.burstToleranceNanos());
+
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+
+            String keyId = exchange.getAttribute(ApiKeyGatewayFilterFactory.API_KEY_ID_ATTRIBUTE);
+            if (keyId == null) {
+                return chain.filter(exchange);
+            }
+
+            long waitNanos = acquire(routeId, limit, keyId);
+            if (waitNanos == 0) {
+                return chain.filter(exchange);
+            }
+            return tooManyRequests(exchange, waitNanos);
+        };
+    }
+
+    /**
+     * Charges one request to the route's bucket for the key, for callers that reach a route's downstream
+     * without passing through its filters (batched sub-requests).
+     *
+     * @return 0 if the request is allowed, otherwise the number of nanoseconds until a token is available
+     */
+    public long tryAcquire(String routeId, String keyId) {
+        if (!properties.isEnabled() || keyId == null) {
+            return 0;
+        }
+        return acquire(routeId, properties.limitFor(routeId), keyId);
+    }
+
+    /** Whole seconds a client should wait, rounded up, as sent in {@code Retry-After}. */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private long acquire(String routeId, RateLimit limit, String keyId) {
+        long waitNanos = rateLimitStore.tryAcquire(routeId, keyId, limit);
+        if (waitNanos != 0) {
+            meterRegistry.counter("gateway.ratelimit.rejections", "route", routeId, "key", keyId).increment();
+            log.debug("Rate limit exceeded. route={}, keyId={}, retryAfterNanos={}", routeId, keyId, waitNanos);
+        }
+        return waitNanos;
+    }
+
+    private Mono<Void> tooManyRequests(ServerWebExchange exchange, long waitNanos) {
+        long retryAfterSeconds = retryAfterSeconds(waitNanos);
+
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+
+        String body = String.format("{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded, retry after %d seconds\"}",
+                retryAfterSeconds);
+        byte[] bytes = body.getBytes();
+        exchange.getResponse().getHeaders().setContentLength(bytes.length);
+
+        return exchange.getResponse()
+                .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("routeId");
+    }
+
+    @Data
+    public static class Config {
+        private String routeId;
+    }
+}
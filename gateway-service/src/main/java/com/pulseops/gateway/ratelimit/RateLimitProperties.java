@@ -0,0 +1,36 @@
+package com.pulseops.gateway.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-route token bucket limits, keyed by gateway route id. Routes without an entry use {@code default-limit}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pulseops.gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private Limit defaultLimit = new Limit();
+
+    private Map<String, Limit> routes = new HashMap<>();
+
+    public RateLimit limitFor(String routeId) {
+        Limit limit = routes.getOrDefault(routeId, defaultLimit);
+        return RateLimit.of(limit.getReplenishRate(), limit.getBurstCapacity());
+    }
+
+    @Data
+    public static class Limit {
+        /** Tokens added per second. */
+        private double replenishRate = 50;
+        /** Maximum tokens a key can spend at once. */
+        private int burstCapacity = 100;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pulseops.gateway.ratelimit;
+
+/**
+ * Storage for per-key token buckets. The default {@link InMemoryRateLimitStore} keeps buckets local
+ * to one gateway replica; a shared backend can be swapped in by registering another bean as {@code @Primary}.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one token from the bucket for the given route and key.
+     *
+     * @return 0 if the request is allowed, otherwise the number of nanoseconds until a token is available
+     */
+    long tryAcquire(String routeId, String keyId, RateLimit limit);
+}
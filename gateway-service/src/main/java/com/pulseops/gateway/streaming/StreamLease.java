@@ -0,0 +1,22 @@
+package com.pulseops.gateway.streaming;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A slot held by one open stream. Released exactly once when the stream ends, however it ends.
+ */
+class StreamLease {
+
+    private final Runnable onRelease;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    StreamLease(Runnable onRelease) {
+        this.onRelease = onRelease;
+    }
+
+    void release() {
+        if (released.compareAndSet(false, true)) {
+            onRelease.run();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.pulseops.gateway.streaming;
+
+import com.pulseops.gateway.filter.ApiKeyGatewayFilterFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of concurrent streams per API key. Must be applied after {@link ApiKeyGatewayFilterFactory}
+ * on a route marked as streaming (see {@link StreamingResponseFilter}), which releases the slot when the
+ * stream actually ends; this filter's own chain completes as soon as the response headers arrive.
+ */
+@Slf4j
+@Component
+public class StreamLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<StreamLimitGatewayFilterFactory.Config> {
+
+    private final StreamingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> streamsByKey = new ConcurrentHashMap<>();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    public StreamLimitGatewayFilterFactory(StreamingProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.streams.active", activeStreams, AtomicInteger::get)
+                .description("Streams currently open through the gateway")
+                .register(meterRegistry);
+        Gauge.builder("gateway.streams.keys", streamsByKey, Map::size)
+                .description("API keys with at least one open stream")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String keyId = exchange.getAttribute(ApiKeyGatewayFilterFactory.API_KEY_ID_ATTRIBUTE);
+            if (keyId == null) {
+                return chain.filter(exchange);
+            }
+
+            StreamLease lease = tryAcquire(keyId);
+            if (lease == null) {
+                meterRegistry.counter("gateway.streams.rejected").increment();
+                log.debug("Stream limit reached. keyId={}, maxStreamsPerKey={}", keyId, properties.getMaxStreamsPerKey());
+                return tooManyStreams(exchange);
+            }
+            exchange.getAttributes().put(StreamingResponseFilter.STREAM_LEASE_ATTRIBUTE, lease);
+            return chain.filter(exchange);
+        };
+    }
+
+    private StreamLease tryAcquire(String keyId) {
+        boolean[] acquired = {false};
+        // compute() keeps the per-key counter and its removal at zero atomic with respect to release()
+        streamsByKey.compute(keyId, (k, count) -> {
+            AtomicInteger current = count != null ? count : new AtomicInteger();
+            if (current.get() < properties.getMaxStreamsPerKey()) {
+                current.incrementAndGet();
+                acquired[0] = true;
+            }
+            return current.get() == 0 ? null : current;
+        });
+        if (!acquired[0]) {
+            return null;
+        }
+        activeStreams.incrementAndGet();
+        return new StreamLease(() -> release(keyId));
+    }
+
+    private void release(String keyId) {
+        activeStreams.decrementAndGet();
+        streamsByKey.computeIfPresent(keyId, (k, count) -> count.decrementAndGet() == 0 ? null : count);
+    }
+
+    private Mono<Void> tooManyStreams(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+
+        String body = String.format("{\"error\":\"Too Many Requests\",\"message\":\"At most %d concurrent streams per API key\"}",
+                properties.getMaxStreamsPerKey());
+        byte[] bytes = body.getBytes();
+        exchange.getResponse().getHeaders().setContentLength(bytes.length);
+
+        return exchange.getResponse()
+                .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    public static class Config {
+    }
+}
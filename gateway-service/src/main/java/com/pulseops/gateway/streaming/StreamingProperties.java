@@ -0,0 +1,25 @@
+package com.pulseops.gateway.streaming;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for long-lived streaming (SSE) routes.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pulseops.gateway.streaming")
+public class StreamingProperties {
+
+    /** Concurrent streams a single API key may hold open. */
+    private int maxStreamsPerKey = 5;
+
+    /**
+     * A stream that delivers nothing, not even a heartbeat, for this long is considered dead and closed.
+     * Should comfortably exceed the downstream heartbeat interval (30s in activity-service).
+     */
+    private Duration idleTimeout = Duration.ofSeconds(75);
+}
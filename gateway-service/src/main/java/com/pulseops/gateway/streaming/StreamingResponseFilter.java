@@ -0,0 +1,97 @@
+package com.pulseops.gateway.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lifecycle handling for routes carrying the {@link #STREAMING_METADATA} route metadata.
+ *
+ * <p>Such routes disable the gateway's response timeout, which reactor-netty applies between reads and
+ * so would cut streams whose heartbeat interval is close to it. Instead this filter closes a stream once
+ * nothing, heartbeats included, has flowed for the idle timeout, and releases the stream's
+ * {@link StreamLease} when it ends.
+ *
+ * <p>Body writes happen in {@link NettyWriteResponseFilter} after the rest of the chain has completed,
+ * so this runs just ahead of it: it is the only place that sees the stream from start to end.
+ */
+@Slf4j
+@Component
+public class StreamingResponseFilter implements GlobalFilter, Ordered {
+
+    /** Route metadata key marking a route as long-lived streaming. */
+    public static final String STREAMING_METADATA = "pulseops.streaming";
+
+    /** Exchange attribute holding the {@link StreamLease} taken by {@link StreamLimitGatewayFilterFactory}. */
+    static final String STREAM_LEASE_ATTRIBUTE = "pulseops.streamLease";
+
+    private final StreamingProperties properties;
+    private final Counter idleClosed;
+
+    public StreamingResponseFilter(StreamingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.idleClosed = Counter.builder("gateway.streams.idle.closed")
+                .description("Streams closed because not even a heartbeat arrived within the idle timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !Boolean.TRUE.equals(route.getMetadata().get(STREAMING_METADATA))) {
+            return chain.filter(exchange);
+        }
+
+        Duration idleTimeout = properties.getIdleTimeout();
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(closeWhenIdle(Flux.from(body), idleTimeout));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(closeWhenIdle(Flux.from(body), idleTimeout));
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    StreamLease lease = exchange.getAttribute(STREAM_LEASE_ATTRIBUTE);
+                    if (lease != null) {
+                        lease.release();
+                    }
+                });
+    }
+
+    private <T> Flux<T> closeWhenIdle(Flux<T> body, Duration idleTimeout) {
+        // Completing rather than erroring ends the response cleanly, so EventSource simply reconnects
+        return body.timeout(idleTimeout)
+                .onErrorResume(TimeoutException.class, e -> {
+                    idleClosed.increment();
+                    log.debug("Closing idle stream after {}", idleTimeout);
+                    return Flux.empty();
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+}
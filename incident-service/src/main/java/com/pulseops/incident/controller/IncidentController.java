@@ -1,17 +1,28 @@
 package com.pulseops.incident.controller;
 
 import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.model.IncidentFilter;
+import com.pulseops.incident.service.IncidentExportService;
 import com.pulseops.incident.service.IncidentService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -20,8 +31,11 @@ import java.util.Optional;
 public class IncidentController {
 
     private final IncidentService incidentService;
+    private final IncidentExportService incidentExportService;
 
     private static final String CORRELATION_ID_HEADER = "X-Correlation-ID";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
 
     @PostMapping
     public ResponseEntity<Incident> createIncident(
@@ -33,13 +47,120 @@ public class IncidentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(incident);
     }
 
+    /**
+     * Creates up to {@code pulseops.incident.bulk.max-items} incidents at once and reports an outcome per item,
+     * in request order.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createIncidents(
+            @RequestBody IncidentService.BulkCreateRequest request,
+            HttpServletRequest httpRequest) {
+
+        String correlationId = getCorrelationId(httpRequest);
+        try {
+            return ResponseEntity.ok(incidentService.createIncidents(request.getIncidents(), correlationId));
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid batch", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves many incidents to one status, e.g. closing everything mitigated after an outage. Each incident
+     * is checked against the same transition rules as {@code POST /{id}/status} and gets its own outcome.
+     */
+    @PostMapping("/bulk/status")
+    public ResponseEntity<?> changeStatuses(
+            @RequestBody IncidentService.BulkStatusChangeRequest request,
+            HttpServletRequest httpRequest) {
+
+        String correlationId = getCorrelationId(httpRequest);
+        try {
+            return ResponseEntity.ok(incidentService.changeStatuses(request, correlationId));
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid batch", e.getMessage());
+        }
+    }
+
+    /**
+     * Lists incidents matching all of the given filters. A filter given several values (repeated or
+     * comma-separated) matches any of them; {@code tagMatch=all} requires every listed tag instead.
+     */
     @GetMapping
-    public ResponseEntity<List<Incident>> listIncidents(
+    public ResponseEntity<?> listIncidents(
+            @RequestParam(required = false) List<Incident.IncidentStatus> status,
+            @RequestParam(required = false) List<String> severity,
+            @RequestParam(required = false) List<String> tag,
+            @RequestParam(required = false) List<String> assignee,
+            @RequestParam(defaultValue = "any") String tagMatch,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "full") String view) {
+
+        IncidentService.IncidentView incidentView;
+        try {
+            incidentView = IncidentService.IncidentView.valueOf(view.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid view", "view must be 'full' or 'summary'");
+        }
+        if (!isTagMatch(tagMatch)) {
+            return badRequest("Invalid tagMatch", "tagMatch must be 'any' or 'all'");
+        }
+        IncidentFilter filter = filter(status, severity, tag, assignee, tagMatch);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        try {
+            return ResponseEntity.ok(incidentService.listIncidents(filter, cursor, pageSize, incidentView));
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid cursor", e.getMessage());
+        }
+    }
+
+    /** Counts incidents matching the same filters as the listing, in total and by status. */
+    @GetMapping("/count")
+    public ResponseEntity<?> countIncidents(
+            @RequestParam(required = false) List<Incident.IncidentStatus> status,
+            @RequestParam(required = false) List<String> severity,
+            @RequestParam(required = false) List<String> tag,
+            @RequestParam(required = false) List<String> assignee,
+            @RequestParam(defaultValue = "any") String tagMatch) {
+
+        if (!isTagMatch(tagMatch)) {
+            return badRequest("Invalid tagMatch", "tagMatch must be 'any' or 'all'");
+        }
+        return ResponseEntity.ok(incidentService.countIncidents(filter(status, severity, tag, assignee, tagMatch)));
+    }
+
+    /**
+     * Streams every matching incident as NDJSON or CSV. {@code from} (inclusive) and {@code to} (exclusive)
+     * bound createdAt and are ISO-8601 instants.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportIncidents(
             @RequestParam(required = false) Incident.IncidentStatus status,
-            @RequestParam(required = false) String severity) {
-        
-        List<Incident> incidents = incidentService.listIncidents(status, severity);
-        return ResponseEntity.ok(incidents);
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        IncidentExportService.ExportFormat exportFormat;
+        try {
+            exportFormat = IncidentExportService.ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return badRequest("Invalid format", "format must be 'ndjson' or 'csv'");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return badRequest("Invalid range", "from must be before to");
+        }
+
+        StreamingResponseBody body = out ->
+                incidentExportService.export(status, severity, from, to, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("incidents." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -56,9 +177,23 @@ public class IncidentController {
             HttpServletRequest httpRequest) {
         
         String correlationId = getCorrelationId(httpRequest);
-        Optional<Incident> updated = incidentService.updateIncident(id, request, correlationId);
-        return updated.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        IncidentService.UpdateResult result = incidentService.updateIncident(id, request, correlationId);
+
+        if (result.isNotFound()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (result.isConflict()) {
+            // currentVersion is null for incidents not updated since versioning was introduced
+            Map<String, Object> body = new HashMap<>();
+            body.put("error", "Version conflict");
+            body.put("currentVersion", result.getCurrentVersion());
+            body.put("expectedVersion", result.getExpectedVersion());
+            body.put("message", "Incident was modified concurrently; reload it and retry");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        }
+
+        return ResponseEntity.ok(result.getIncident());
     }
 
     @PostMapping("/{id}/status")
@@ -88,6 +223,31 @@ public class IncidentController {
         return ResponseEntity.ok(result.getIncident());
     }
 
+    private static boolean isTagMatch(String tagMatch) {
+        return "any".equalsIgnoreCase(tagMatch) || "all".equalsIgnoreCase(tagMatch);
+    }
+
+    private static IncidentFilter filter(List<Incident.IncidentStatus> statuses, List<String> severities,
+                                         List<String> tags, List<String> assignees, String tagMatch) {
+        return new IncidentFilter(values(statuses), values(severities), values(tags),
+                "all".equalsIgnoreCase(tagMatch), values(assignees));
+    }
+
+    // Drops the empty values a parameter given as e.g. "severity=" binds to
+    private static <T> Set<T> values(List<T> values) {
+        Set<T> set = new HashSet<>();
+        if (values != null) {
+            values.stream()
+                    .filter(value -> value != null && !value.toString().isBlank())
+                    .forEach(set::add);
+        }
+        return set;
+    }
+
+    private ResponseEntity<Map<String, String>> badRequest(String error, String message) {
+        return ResponseEntity.badRequest().body(Map.of("error", error, "message", message));
+    }
+
     private String getCorrelationId(HttpServletRequest request) {
         String correlationId = request.getHeader(CORRELATION_ID_HEADER);
         if (correlationId == null || correlationId.isBlank()) {
@@ -4,8 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends domain events to Kafka, keyed by incident id so each incident's events stay in order on one partition.
+ * Services don't call this directly: they write events to the incident's outbox and {@link OutboxRelay} sends them.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -16,23 +23,10 @@ public class EventPublisher {
     @Value("${pulseops.kafka.topic.domain-events:pulseops.domain-events}")
     private String topicName;
 
-    public void publish(String type, String incidentId, String correlationId, Object payload) {
-        EventEnvelope event = EventEnvelope.create(type, incidentId, correlationId, payload);
-        
-        log.debug("Publishing event: type={}, incidentId={}, correlationId={}", 
-                type, incidentId, correlationId);
-        
-        kafkaTemplate.send(topicName, incidentId, event)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish event: type={}, incidentId={}", 
-                                type, incidentId, ex);
-                    } else {
-                        log.debug("Event published successfully: type={}, incidentId={}, partition={}, offset={}",
-                                type, incidentId, 
-                                result.getRecordMetadata().partition(),
-                                result.getRecordMetadata().offset());
-                    }
-                });
+    public CompletableFuture<SendResult<String, EventEnvelope>> send(EventEnvelope event) {
+        log.debug("Publishing event: type={}, incidentId={}, correlationId={}",
+                event.getType(), event.getIncidentId(), event.getCorrelationId());
+
+        return kafkaTemplate.send(topicName, event.getIncidentId(), event);
     }
 }
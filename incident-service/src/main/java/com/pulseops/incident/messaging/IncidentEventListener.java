@@ -0,0 +1,41 @@
+package com.pulseops.incident.messaging;
+
+import com.pulseops.incident.scheduler.StaleIncidentDetector;
+import com.pulseops.incident.service.IncidentCache;
+import com.pulseops.incident.service.IncidentIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this replica's {@link IncidentCache} in step with writes made anywhere, by dropping the cached copy
+ * of every incident an {@code incident.*} event is about. This replica's own events come back too; the
+ * extra miss that costs is the price of not having to tell them apart. The same events keep the
+ * {@link StaleIncidentDetector}'s deadlines and the {@link IncidentIndex} current for writes made by
+ * other replicas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IncidentEventListener {
+
+    private final IncidentCache incidentCache;
+    private final StaleIncidentDetector staleIncidentDetector;
+    private final IncidentIndex incidentIndex;
+
+    @KafkaListener(
+            topics = "${pulseops.kafka.topic.domain-events}",
+            groupId = "${pulseops.kafka.consumer.group-id}",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void handleDomainEvent(@Payload EventEnvelope event) {
+        if (event.getType() != null && event.getType().startsWith("incident.")) {
+            log.debug("Invalidating cached incident: type={}, incidentId={}", event.getType(), event.getIncidentId());
+            incidentCache.invalidate(event.getIncidentId(), event.getOccurredAt());
+            staleIncidentDetector.onIncidentEvent(event);
+            incidentIndex.apply(event);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.pulseops.incident.messaging;
+
+import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.repository.IncidentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays events from incident outboxes to Kafka.
+ *
+ * <p>Every linger interval it claims up to {@code batch-size} incidents with pending events, oldest first,
+ * hands all their events to the producer at once and waits for the acks. Events are only removed from an
+ * outbox once acknowledged, and per incident only up to the first failure, so each incident's events reach
+ * Kafka in order, at least once. A full batch is followed straight away by the next one until the backlog
+ * is drained.
+ *
+ * <p>Every replica runs the relay. A claim keeps other replicas off an incident while its events are in
+ * flight and is released once they are acknowledged; it lapses after {@code claim-ms} if the replica dies
+ * first. An event is therefore only sent twice when a replica crashes, or outlives its claim, between send
+ * and acknowledgement. Consumers that must not double-count such an event key what they store by
+ * {@link EventEnvelope#getEventId()}, as activity-service does.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final IncidentRepository incidentRepository;
+    private final EventPublisher eventPublisher;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final Duration claimDuration;
+
+    private final Timer relayLag;
+    private final Counter relayed;
+    private final Counter failed;
+    private volatile Instant oldestPendingSince;
+
+    public OutboxRelay(IncidentRepository incidentRepository,
+            EventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${pulseops.incident.outbox.batch-size:200}") int batchSize,
+            @Value("${pulseops.incident.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${pulseops.incident.outbox.claim-ms:30000}") long claimMs) {
+        if (claimMs <= sendTimeoutMs) {
+            throw new IllegalArgumentException("Outbox claim-ms must be longer than send-timeout-ms");
+        }
+        this.incidentRepository = incidentRepository;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.claimDuration = Duration.ofMillis(claimMs);
+        this.relayLag = Timer.builder("incident.outbox.relay.lag")
+                .description("Time from an event being written to the outbox to Kafka acknowledging it")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.relayed = Counter.builder("incident.outbox.relayed")
+                .description("Events relayed from incident outboxes to Kafka")
+                .register(meterRegistry);
+        this.failed = Counter.builder("incident.outbox.relay.failures")
+                .description("Event sends that failed and were left in the outbox for a retry")
+                .register(meterRegistry);
+        Gauge.builder("incident.outbox.oldest.pending.age", this, relay -> {
+                    Instant oldest = relay.oldestPendingSince;
+                    return oldest != null ? Duration.between(oldest, Instant.now()).toMillis() / 1000.0 : 0;
+                })
+                .description("Age in seconds of the oldest event still waiting in an outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${pulseops.incident.outbox.linger-ms:100}")
+    public void relay() {
+        try {
+            boolean more = true;
+            while (more) {
+                more = relayBatch();
+            }
+        } catch (Exception e) {
+            log.warn("Outbox relay pass failed, retrying next interval: {}", e.getMessage());
+        }
+    }
+
+    /** Relays one batch; true if it was full and fully sent, so more may be waiting. */
+    private boolean relayBatch() {
+        String claim = UUID.randomUUID().toString();
+        Instant claimedAt = Instant.now();
+        List<Incident> pending = incidentRepository.claimPendingEvents(
+                claim, claimedAt, claimedAt.plus(claimDuration), batchSize);
+        oldestPendingSince = pending.isEmpty() ? null : pending.get(0).getOutboxPendingSince();
+        if (pending.isEmpty()) {
+            return false;
+        }
+        try {
+            return send(pending);
+        } finally {
+            incidentRepository.releaseClaim(pending.stream().map(Incident::getId).toList(), claim);
+        }
+    }
+
+    private boolean send(List<Incident> pending) {
+        // One entry per pending incident, in the same order
+        List<List<CompletableFuture<?>>> sends = new ArrayList<>(pending.size());
+        List<CompletableFuture<?>> all = new ArrayList<>();
+        for (Incident incident : pending) {
+            List<CompletableFuture<?>> incidentSends = new ArrayList<>();
+            for (EventEnvelope event : incident.getPendingEvents()) {
+                incidentSends.add(eventPublisher.send(event));
+            }
+            sends.add(incidentSends);
+            all.addAll(incidentSends);
+        }
+        try {
+            CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Individual outcomes are checked below
+        }
+
+        Map<String, List<String>> acknowledged = new HashMap<>();
+        Instant now = Instant.now();
+        int failures = 0;
+        for (int n = 0; n < pending.size(); n++) {
+            List<EventEnvelope> events = pending.get(n).getPendingEvents();
+            List<String> eventIds = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                CompletableFuture<?> send = sends.get(n).get(i);
+                if (!send.isDone() || send.isCompletedExceptionally()) {
+                    // Later events of this incident are resent with it, keeping them in order
+                    failures += events.size() - i;
+                    break;
+                }
+                eventIds.add(events.get(i).getEventId());
+                relayLag.record(Duration.between(events.get(i).getOccurredAt(), now));
+            }
+            if (!eventIds.isEmpty()) {
+                acknowledged.put(pending.get(n).getId(), eventIds);
+            }
+        }
+        incidentRepository.acknowledgeEvents(acknowledged);
+
+        int sent = all.size() - failures;
+        relayed.increment(sent);
+        if (failures > 0) {
+            failed.increment(failures);
+            log.warn("Relayed {} outbox events, {} failed and stay pending", sent, failures);
+        } else {
+            log.debug("Relayed {} outbox events from {} incidents", sent, pending.size());
+        }
+        return failures == 0 && pending.size() == batchSize;
+    }
+}
@@ -0,0 +1,25 @@
+package com.pulseops.incident.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/** A replica taking part in stale detection, live until its lease expires. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stale_detector_members")
+public class DetectorMember {
+
+    @Id
+    private String id;
+
+    // Expired leases are dropped by Mongo; liveness itself is judged by the query, not by the TTL monitor
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
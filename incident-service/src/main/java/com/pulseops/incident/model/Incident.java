@@ -1,5 +1,7 @@
 package com.pulseops.incident.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pulseops.incident.messaging.EventEnvelope;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,7 +9,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -18,8 +21,24 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "incidents")
+// Listing pages through (lastActivityAt, _id) descending, so each supported filter combination gets an index
+// ending in that order; the status and severity prefixes also serve plain equality lookups
+@CompoundIndex(name = "activity_page", def = "{'lastActivityAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_activity_page", def = "{'status': 1, 'lastActivityAt': -1, '_id': -1}")
+@CompoundIndex(name = "severity_activity_page", def = "{'severity': 1, 'lastActivityAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_severity_activity_page", def = "{'status': 1, 'severity': 1, 'lastActivityAt': -1, '_id': -1}")
+@CompoundIndex(name = Incident.CREATED_AT_INDEX, def = "{'createdAt': 1}")
+// Only incidents created with a key take part; closing an incident clears it so the key can open a new one
+@CompoundIndex(name = "idempotency_key", def = "{'idempotencyKey': 1}", unique = true,
+        partialFilter = "{'idempotencyKey': {$exists: true}}")
+// The outbox relay polls only incidents with events waiting, oldest first
+@CompoundIndex(name = "outbox_pending", def = "{'outboxPendingSince': 1}",
+        partialFilter = "{'outboxPendingSince': {$exists: true}}")
 public class Incident {
 
+    /** Export walks this index so its createdAt order never needs an in-memory sort. */
+    public static final String CREATED_AT_INDEX = "created_at";
+
     @Id
     private String id;
 
@@ -27,10 +46,8 @@ public class Incident {
 
     private String description;
 
-    @Indexed
     private IncidentStatus status;
 
-    @Indexed
     private String severity;
 
     private String assignee;
@@ -47,6 +64,33 @@ public class Incident {
 
     private boolean stale;
 
+    /** Client-supplied key collapsing repeated creates (e.g. the same alert firing again) into one open incident. */
+    private String idempotencyKey;
+
+    /**
+     * Outbox of domain events written in the same atomic update as the change they describe and not yet
+     * relayed to Kafka. Mongo here has no multi-document transactions, so the incident document itself is
+     * the unit of work.
+     */
+    @JsonIgnore
+    private List<EventEnvelope> pendingEvents;
+
+    /** When the oldest of {@link #pendingEvents} was written; absent once they have all been relayed. */
+    @JsonIgnore
+    private Instant outboxPendingSince;
+
+    /** Token of the relay pass currently sending this incident's outbox, so other replicas skip it. */
+    @JsonIgnore
+    private String relayClaim;
+
+    /** When {@link #relayClaim} lapses, letting another relay take over after a crash. */
+    @JsonIgnore
+    private Instant relayClaimedUntil;
+
+    /** Bumped by every update; null on incidents written before versioning until their first update. */
+    @Version
+    private Long version;
+
     public enum IncidentStatus {
         OPEN,
         INVESTIGATING,
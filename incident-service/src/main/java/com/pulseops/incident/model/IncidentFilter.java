@@ -0,0 +1,52 @@
+package com.pulseops.incident.model;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Which incidents a listing or count covers. Values within one field are alternatives; fields are combined,
+ * so {@code statuses={OPEN, INVESTIGATING}, tags={db}} means "open or investigating, and tagged db".
+ * With {@code allTags} an incident must carry every one of {@code tags} instead of any. Empty fields don't
+ * restrict anything.
+ */
+public record IncidentFilter(Set<Incident.IncidentStatus> statuses, Set<String> severities, Set<String> tags,
+                             boolean allTags, Set<String> assignees) {
+
+    public static final IncidentFilter NONE = new IncidentFilter(Set.of(), Set.of(), Set.of(), false, Set.of());
+
+    public IncidentFilter {
+        statuses = statuses != null ? Set.copyOf(statuses) : Set.of();
+        severities = severities != null ? Set.copyOf(severities) : Set.of();
+        tags = tags != null ? Set.copyOf(tags) : Set.of();
+        assignees = assignees != null ? Set.copyOf(assignees) : Set.of();
+    }
+
+    public boolean isEmpty() {
+        return statuses.isEmpty() && severities.isEmpty() && tags.isEmpty() && assignees.isEmpty();
+    }
+
+    /** The same filter narrowed to a single status. */
+    public IncidentFilter withStatus(Incident.IncidentStatus status) {
+        return new IncidentFilter(Set.of(status), severities, tags, allTags, assignees);
+    }
+
+    public boolean matches(Incident incident) {
+        if (!statuses.isEmpty() && !statuses.contains(incident.getStatus())) {
+            return false;
+        }
+        if (!severities.isEmpty() && !severities.contains(incident.getSeverity())) {
+            return false;
+        }
+        if (!assignees.isEmpty() && !assignees.contains(incident.getAssignee())) {
+            return false;
+        }
+        if (tags.isEmpty()) {
+            return true;
+        }
+        List<String> incidentTags = incident.getTags() != null ? incident.getTags() : List.of();
+        return allTags
+                ? incidentTags.containsAll(tags)
+                : incidentTags.stream().filter(Objects::nonNull).anyMatch(tags::contains);
+    }
+}
@@ -0,0 +1,16 @@
+package com.pulseops.incident.repository;
+
+import com.pulseops.incident.model.DetectorMember;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface DetectorMemberRepository extends MongoRepository<DetectorMember, String> {
+
+    @Query(value = "{ 'expiresAt': { $gt: ?0 } }", fields = "{ '_id': 1 }")
+    List<DetectorMember> findLive(Instant now);
+}
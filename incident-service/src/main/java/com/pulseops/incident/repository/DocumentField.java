@@ -0,0 +1,9 @@
+package com.pulseops.incident.repository;
+
+/**
+ * Placeholder in the payload of an event written to an incident's outbox, standing for the value a field of
+ * that incident has at the point of the update where the event is appended. Lets a single conditional update
+ * record an event about values the caller never read.
+ */
+public record DocumentField(String name) {
+}
@@ -6,17 +6,15 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface IncidentRepository extends MongoRepository<Incident, String> {
+public interface IncidentRepository extends MongoRepository<Incident, String>, IncidentRepositoryCustom {
 
-    List<Incident> findByStatus(Incident.IncidentStatus status);
-
-    List<Incident> findBySeverity(String severity);
-
-    List<Incident> findByStatusAndSeverity(Incident.IncidentStatus status, String severity);
-
-    @Query("{ 'status': { $in: ?0 }, 'lastActivityAt': { $lt: ?1 }, 'stale': false }")
+    @Query(value = "{ 'status': { $in: ?0 }, 'lastActivityAt': { $lt: ?1 }, 'stale': false }",
+            fields = "{ 'lastActivityAt': 1 }")
     List<Incident> findStaleIncidents(List<Incident.IncidentStatus> statuses, Instant threshold);
+
+    List<Incident> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
 }
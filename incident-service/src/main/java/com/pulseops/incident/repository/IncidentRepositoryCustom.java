@@ -0,0 +1,118 @@
+package com.pulseops.incident.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.pulseops.incident.messaging.EventEnvelope;
+import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.model.IncidentFilter;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes that change an incident take the {@link EventEnvelope} describing the change and append it to the
+ * incident's outbox in the same atomic update; {@link DocumentField} values in its payload are resolved
+ * against the document as noted on each method.
+ */
+public interface IncidentRepositoryCustom {
+
+    /**
+     * One page of incidents ordered by {@code (lastActivityAt, id)} descending, starting strictly after the
+     * given position (or from the top when {@code afterLastActivityAt} is null).
+     * With {@code summary} the large fields (description, tags) are not read.
+     */
+    List<Incident> findPage(IncidentFilter filter, Instant afterLastActivityAt, String afterId, int limit,
+                            boolean summary);
+
+    long count(IncidentFilter filter);
+
+    /**
+     * The given incidents, in no particular order, for a page chosen elsewhere. With {@code summary} the
+     * description is not read; tags are, so the page can still be checked against a tag filter.
+     */
+    List<Incident> findAllForPage(Collection<String> ids, boolean summary);
+
+    /**
+     * Every incident with only the fields the in-memory filter index holds (status, severity, assignee,
+     * tags, lastActivityAt). The stream holds a server-side cursor and must be closed.
+     */
+    Stream<Incident> streamForIndex(int batchSize);
+
+    /** The given incidents with only the fields the in-memory filter index holds. */
+    List<Incident> findForIndex(Collection<String> ids);
+
+    /**
+     * All matching incidents in {@code createdAt} order, read lazily from a Mongo cursor.
+     * {@code createdFrom} is inclusive, {@code createdTo} exclusive; null bounds and filters are ignored.
+     * The stream holds a server-side cursor and must be closed.
+     */
+    Stream<Incident> streamForExport(Incident.IncidentStatus status, String severity,
+                                     Instant createdFrom, Instant createdTo, int batchSize);
+
+    /**
+     * Atomically moves an incident to {@code newStatus} if its current status is one of {@code fromStatuses},
+     * setting lastActivityAt and bumping the version. Closing an incident also releases its idempotency key.
+     * Fields in the event payload are read before the change. Returns the incident as it was before the
+     * change, or null if no incident with that id is in one of those statuses.
+     */
+    Incident transitionStatus(String id, Collection<Incident.IncidentStatus> fromStatuses,
+                              Incident.IncidentStatus newStatus, Instant lastActivityAt, EventEnvelope event);
+
+    /**
+     * Atomically {@code $set}s the given fields and bumps the version. With a non-null {@code expectedVersion}
+     * the update only applies if the incident is still at that version. Fields in the event payload are read
+     * after the change. Returns the updated incident, or null if nothing matched.
+     */
+    Incident updateFields(String id, Long expectedVersion, Map<String, Object> changes, EventEnvelope event);
+
+    /**
+     * Flags incidents stale in one unordered bulk write, setting lastActivityAt to {@code now}. Each incident
+     * is only flagged if it is still in one of {@code activeStatuses}, not yet stale and has had no activity
+     * since {@code inactiveSince}, appending its event from {@code eventsById}. Fields in the event payload
+     * are read after the change. Returns how many were flagged.
+     */
+    int markStale(Map<String, EventEnvelope> eventsById, Collection<Incident.IncidentStatus> activeStatuses,
+                  Instant inactiveSince, Instant now);
+
+    /**
+     * Incidents that could go stale: in one of {@code activeStatuses} and not stale yet. Only id, status and
+     * lastActivityAt are loaded. The stream holds a server-side cursor and must be closed.
+     */
+    Stream<Incident> streamStaleCandidates(Collection<Incident.IncidentStatus> activeStatuses);
+
+    /**
+     * Inserts new incidents with one unordered bulk write, so one failing document doesn't stop the rest.
+     * Their creation events are expected in {@link Incident#getPendingEvents()} already. Returns the write
+     * errors by position in {@code incidents}; empty when all were inserted.
+     */
+    Map<Integer, BulkWriteError> insertAll(List<Incident> incidents);
+
+    /** Current status of each of the given incidents; only id, status, lastActivityAt and stale are loaded. */
+    List<Incident> findStatuses(Collection<String> ids);
+
+    /**
+     * Batch form of {@link #transitionStatus} in one unordered bulk write: each incident moves to
+     * {@code newStatus} only if it is still in the status given for it, appending its event from
+     * {@code eventsById}. Returns how many were changed.
+     */
+    int transitionStatuses(Map<String, Incident.IncidentStatus> fromStatusById, Incident.IncidentStatus newStatus,
+                           Instant lastActivityAt, Map<String, EventEnvelope> eventsById);
+
+    /**
+     * Claims up to {@code limit} incidents with events waiting in their outbox, oldest first, skipping those
+     * under another unexpired claim. Returns the incidents this call claimed under {@code claim} until
+     * {@code claimedUntil}, with only id, pendingEvents and outboxPendingSince loaded.
+     */
+    List<Incident> claimPendingEvents(String claim, Instant now, Instant claimedUntil, int limit);
+
+    /** Releases those of the given incidents still held under {@code claim}. */
+    void releaseClaim(Collection<String> ids, String claim);
+
+    /**
+     * Removes relayed events from their incidents' outboxes, clearing outboxPendingSince on incidents left
+     * with none. Events appended meanwhile stay pending.
+     */
+    void acknowledgeEvents(Map<String, List<String>> eventIdsByIncident);
+}
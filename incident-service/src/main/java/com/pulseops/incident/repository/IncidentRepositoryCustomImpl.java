@@ -0,0 +1,345 @@
+package com.pulseops.incident.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.pulseops.incident.messaging.EventEnvelope;
+import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.model.IncidentFilter;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class IncidentRepositoryCustomImpl implements IncidentRepositoryCustom {
+
+    private static final Sort PAGE_ORDER = Sort.by(Sort.Direction.DESC, "lastActivityAt", "_id");
+    private static final Sort EXPORT_ORDER = Sort.by(Sort.Direction.ASC, "createdAt");
+    private static final Sort OUTBOX_ORDER = Sort.by(Sort.Direction.ASC, "outboxPendingSince");
+    private static final String PENDING_EVENTS = "pendingEvents";
+    private static final String OUTBOX_PENDING_SINCE = "outboxPendingSince";
+    private static final String RELAY_CLAIM = "relayClaim";
+    private static final String RELAY_CLAIMED_UNTIL = "relayClaimedUntil";
+    /** Outbox bookkeeping, never needed outside the relay. */
+    private static final String[] OUTBOX_FIELDS = {PENDING_EVENTS, OUTBOX_PENDING_SINCE, RELAY_CLAIM, RELAY_CLAIMED_UNTIL};
+    private static final String[] INDEX_FIELDS = {"status", "severity", "assignee", "tags", "lastActivityAt"};
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Incident> findPage(IncidentFilter filter, Instant afterLastActivityAt, String afterId, int limit,
+                                   boolean summary) {
+        List<Criteria> filters = filterCriteria(filter);
+        if (afterLastActivityAt != null) {
+            // Keyset condition: (lastActivityAt, _id) < (after, afterId)
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("lastActivityAt").lt(afterLastActivityAt),
+                    Criteria.where("lastActivityAt").is(afterLastActivityAt).and("_id").lt(afterId)));
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        query.with(PAGE_ORDER).limit(limit);
+        query.fields().exclude(OUTBOX_FIELDS);
+        if (summary) {
+            query.fields().exclude("description", "tags");
+        }
+        return mongoTemplate.find(query, Incident.class);
+    }
+
+    @Override
+    public long count(IncidentFilter filter) {
+        List<Criteria> filters = filterCriteria(filter);
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        return mongoTemplate.count(query, Incident.class);
+    }
+
+    private static List<Criteria> filterCriteria(IncidentFilter filter) {
+        List<Criteria> filters = new ArrayList<>();
+        if (!filter.statuses().isEmpty()) {
+            filters.add(Criteria.where("status").in(filter.statuses()));
+        }
+        if (!filter.severities().isEmpty()) {
+            filters.add(Criteria.where("severity").in(filter.severities()));
+        }
+        if (!filter.assignees().isEmpty()) {
+            filters.add(Criteria.where("assignee").in(filter.assignees()));
+        }
+        if (!filter.tags().isEmpty()) {
+            filters.add(filter.allTags()
+                    ? Criteria.where("tags").all(filter.tags())
+                    : Criteria.where("tags").in(filter.tags()));
+        }
+        return filters;
+    }
+
+    @Override
+    public List<Incident> findAllForPage(Collection<String> ids, boolean summary) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().exclude(OUTBOX_FIELDS);
+        if (summary) {
+            query.fields().exclude("description");
+        }
+        return mongoTemplate.find(query, Incident.class);
+    }
+
+    @Override
+    public Stream<Incident> streamForIndex(int batchSize) {
+        Query query = new Query().cursorBatchSize(batchSize);
+        query.fields().include(INDEX_FIELDS);
+        return mongoTemplate.stream(query, Incident.class);
+    }
+
+    @Override
+    public List<Incident> findForIndex(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include(INDEX_FIELDS);
+        return mongoTemplate.find(query, Incident.class);
+    }
+
+    @Override
+    public Stream<Incident> streamForExport(Incident.IncidentStatus status, String severity,
+                                            Instant createdFrom, Instant createdTo, int batchSize) {
+        Criteria criteria = new Criteria();
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+        if (severity != null) {
+            criteria.and("severity").is(severity);
+        }
+        if (createdFrom != null || createdTo != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (createdFrom != null) {
+                createdAt.gte(createdFrom);
+            }
+            if (createdTo != null) {
+                createdAt.lt(createdTo);
+            }
+        }
+
+        Query query = new Query(criteria)
+                .with(EXPORT_ORDER)
+                // Walking the createdAt index keeps the sort streaming; a filter index plus an in-memory
+                // sort would have to buffer the whole result before returning the first row
+                .withHint(Incident.CREATED_AT_INDEX)
+                .cursorBatchSize(batchSize);
+        query.fields().exclude(OUTBOX_FIELDS);
+        return mongoTemplate.stream(query, Incident.class);
+    }
+
+    @Override
+    public Incident transitionStatus(String id, Collection<Incident.IncidentStatus> fromStatuses,
+                                     Incident.IncidentStatus newStatus, Instant lastActivityAt, EventEnvelope event) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("status").in(fromStatuses));
+        return mongoTemplate.findAndModify(query, transition(newStatus, lastActivityAt, event),
+                FindAndModifyOptions.options().returnNew(false), Incident.class);
+    }
+
+    @Override
+    public List<Incident> findStatuses(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("status", "lastActivityAt", "stale");
+        return mongoTemplate.find(query, Incident.class);
+    }
+
+    @Override
+    public int transitionStatuses(Map<String, Incident.IncidentStatus> fromStatusById, Incident.IncidentStatus newStatus,
+                                  Instant lastActivityAt, Map<String, EventEnvelope> eventsById) {
+        if (fromStatusById.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Incident.class);
+        fromStatusById.forEach((id, fromStatus) ->
+                bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("status").is(fromStatus)),
+                        transition(newStatus, lastActivityAt, eventsById.get(id))));
+        return bulk.execute().getModifiedCount();
+    }
+
+    // The event is appended first, so fields it references still hold their values from before the change.
+    // IncidentService.statusChanged replays this update on the returned pre-image; keep the two in step
+    private AggregationUpdate transition(Incident.IncidentStatus newStatus, Instant lastActivityAt, EventEnvelope event) {
+        List<Document> stages = new ArrayList<>();
+        stages.add(appendEvent(event));
+        stages.add(new Document("$set", new Document("status", literal(newStatus))
+                .append("lastActivityAt", literal(lastActivityAt))
+                .append("updatedAt", literal(lastActivityAt))
+                .append("version", incrementedVersion())));
+        if (newStatus == Incident.IncidentStatus.CLOSED) {
+            stages.add(new Document("$unset", "idempotencyKey"));
+        }
+        return pipeline(stages);
+    }
+
+    @Override
+    public Incident updateFields(String id, Long expectedVersion, Map<String, Object> changes, EventEnvelope event) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        return setFields(criteria, changes, event);
+    }
+
+    @Override
+    public int markStale(Map<String, EventEnvelope> eventsById, Collection<Incident.IncidentStatus> activeStatuses,
+                         Instant inactiveSince, Instant now) {
+        if (eventsById.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Incident.class);
+        eventsById.forEach((id, event) ->
+                bulk.updateOne(Query.query(Criteria.where("_id").is(id)
+                                .and("status").in(activeStatuses)
+                                .and("stale").is(false)
+                                .and("lastActivityAt").lt(inactiveSince)),
+                        fieldsUpdate(Map.of("stale", true, "lastActivityAt", now), event)));
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public Stream<Incident> streamStaleCandidates(Collection<Incident.IncidentStatus> activeStatuses) {
+        Query query = Query.query(Criteria.where("status").in(activeStatuses).and("stale").is(false));
+        query.fields().include("status", "lastActivityAt");
+        return mongoTemplate.stream(query, Incident.class);
+    }
+
+    private Incident setFields(Criteria criteria, Map<String, Object> changes, EventEnvelope event) {
+        return mongoTemplate.findAndModify(Query.query(criteria), fieldsUpdate(changes, event),
+                FindAndModifyOptions.options().returnNew(true), Incident.class);
+    }
+
+    private AggregationUpdate fieldsUpdate(Map<String, Object> changes, EventEnvelope event) {
+        // Auditing only covers save(), so updatedAt is maintained here
+        Document set = new Document("updatedAt", literal(Instant.now())).append("version", incrementedVersion());
+        changes.forEach((field, value) -> set.append(field, literal(value)));
+        // The event is appended last, so fields it references already hold their new values
+        return pipeline(List.of(new Document("$set", set), appendEvent(event)));
+    }
+
+    @Override
+    public Map<Integer, BulkWriteError> insertAll(List<Incident> incidents) {
+        if (incidents.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Incident.class)
+                    .insert(incidents)
+                    .execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, BulkWriteError> errors = new HashMap<>();
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+            return errors;
+        }
+    }
+
+    @Override
+    public List<Incident> claimPendingEvents(String claim, Instant now, Instant claimedUntil, int limit) {
+        Criteria unclaimed = new Criteria().orOperator(
+                Criteria.where(RELAY_CLAIMED_UNTIL).exists(false),
+                Criteria.where(RELAY_CLAIMED_UNTIL).lte(now));
+        Query candidates = Query.query(Criteria.where(OUTBOX_PENDING_SINCE).exists(true).andOperator(unclaimed))
+                .with(OUTBOX_ORDER)
+                .limit(limit);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, Incident.class).stream().map(Incident::getId).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Re-checked in the update, so of two relays racing for an incident only one gets it
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids).andOperator(unclaimed)),
+                new Update().set(RELAY_CLAIM, claim).set(RELAY_CLAIMED_UNTIL, claimedUntil),
+                Incident.class);
+
+        Query claimed = Query.query(Criteria.where("_id").in(ids).and(RELAY_CLAIM).is(claim)
+                        .and(OUTBOX_PENDING_SINCE).exists(true))
+                .with(OUTBOX_ORDER);
+        claimed.fields().include(PENDING_EVENTS, OUTBOX_PENDING_SINCE);
+        return mongoTemplate.find(claimed, Incident.class);
+    }
+
+    @Override
+    public void releaseClaim(Collection<String> ids, String claim) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids).and(RELAY_CLAIM).is(claim)),
+                new Update().unset(RELAY_CLAIM).unset(RELAY_CLAIMED_UNTIL),
+                Incident.class);
+    }
+
+    @Override
+    public void acknowledgeEvents(Map<String, List<String>> eventIdsByIncident) {
+        if (eventIdsByIncident.isEmpty()) {
+            return;
+        }
+        // Ordered, so each incident's outbox is emptied before it is checked for being empty
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Incident.class);
+        eventIdsByIncident.forEach((id, eventIds) -> {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id)),
+                    new Update().pull(PENDING_EVENTS, new Document("eventId", new Document("$in", eventIds))));
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id).and(PENDING_EVENTS).size(0)),
+                    new Update().unset(PENDING_EVENTS).unset(OUTBOX_PENDING_SINCE));
+        });
+        bulk.execute();
+    }
+
+    /** {@code $set} stage appending {@code event} to the outbox, resolving {@link DocumentField}s in its payload. */
+    private Document appendEvent(EventEnvelope event) {
+        Object payload;
+        if (event.getPayload() instanceof Map<?, ?> fields) {
+            Document resolved = new Document();
+            fields.forEach((name, value) -> resolved.append(String.valueOf(name),
+                    value instanceof DocumentField field ? "$" + field.name() : literal(value)));
+            payload = resolved;
+        } else {
+            payload = literal(event.getPayload());
+        }
+        Document envelope = new Document("eventId", literal(event.getEventId()))
+                .append("type", literal(event.getType()))
+                .append("occurredAt", literal(event.getOccurredAt()))
+                .append("producer", literal(event.getProducer()))
+                .append("correlationId", literal(event.getCorrelationId()))
+                .append("entityId", literal(event.getEntityId()))
+                .append("incidentId", literal(event.getIncidentId()))
+                .append("payload", payload);
+        return new Document("$set", new Document(PENDING_EVENTS, new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$" + PENDING_EVENTS, List.of())),
+                        List.of(envelope))))
+                .append(OUTBOX_PENDING_SINCE, new Document("$ifNull", List.of(
+                        "$" + OUTBOX_PENDING_SINCE, literal(event.getOccurredAt())))));
+    }
+
+    // Values are wrapped in $literal so user text starting with '$' isn't read as a field path
+    private Document literal(Object value) {
+        return new Document("$literal", mongoTemplate.getConverter().convertToMongoType(value));
+    }
+
+    private static Document incrementedVersion() {
+        return new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L));
+    }
+
+    private static AggregationUpdate pipeline(List<Document> stages) {
+        return AggregationUpdate.from(stages.stream()
+                .<AggregationOperation>map(stage -> context -> stage)
+                .toList());
+    }
+}
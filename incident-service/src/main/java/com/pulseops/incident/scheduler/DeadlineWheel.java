@@ -0,0 +1,85 @@
+package com.pulseops.incident.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of deadlines by id. Scheduling, rescheduling and cancelling are O(1); each
+ * {@link #advance} only looks at the slots of the ticks that passed since the previous one, so its cost
+ * depends on how many deadlines share those slots, not on how many are tracked.
+ *
+ * <p>Deadlines further out than one turn of the wheel share slots with nearer ones and are skipped until
+ * their own turn comes round. A deadline already due when scheduled fires on the next advance.
+ */
+class DeadlineWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Map<String, Long>> slots;
+    /** Tick whose slot holds each id, so it can be found again without knowing its old deadline. */
+    private final Map<String, Long> ticksById = new HashMap<>();
+    private long currentTick = Long.MIN_VALUE;
+
+    DeadlineWheel(long tickMillis, int wheelSize) {
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new HashMap<>());
+        }
+    }
+
+    synchronized void schedule(String id, long deadlineMillis) {
+        cancel(id);
+        long tick = deadlineMillis / tickMillis;
+        if (currentTick != Long.MIN_VALUE && tick <= currentTick) {
+            tick = currentTick + 1;
+        }
+        slots.get((int) (tick & mask)).put(id, deadlineMillis);
+        ticksById.put(id, tick);
+    }
+
+    synchronized void cancel(String id) {
+        Long tick = ticksById.remove(id);
+        if (tick != null) {
+            slots.get((int) (tick & mask)).remove(id);
+        }
+    }
+
+    synchronized void clear() {
+        for (Map<String, Long> slot : slots) {
+            slot.clear();
+        }
+        ticksById.clear();
+    }
+
+    synchronized int size() {
+        return ticksById.size();
+    }
+
+    /** Removes and returns the ids whose deadline is at or before {@code nowMillis}, with their deadlines. */
+    synchronized Map<String, Long> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        // The first advance, or one after more than a full turn, visits every slot once
+        long from = currentTick == Long.MIN_VALUE ? nowTick - mask : Math.max(currentTick + 1, nowTick - mask);
+        Map<String, Long> due = new HashMap<>();
+        for (long tick = from; tick <= nowTick; tick++) {
+            Iterator<Map.Entry<String, Long>> entries = slots.get((int) (tick & mask)).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                if (entry.getValue() <= nowMillis) {
+                    due.put(entry.getKey(), entry.getValue());
+                    ticksById.remove(entry.getKey());
+                    entries.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return due;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.pulseops.incident.scheduler;
+
+import com.pulseops.incident.model.DetectorMember;
+import com.pulseops.incident.repository.DetectorMemberRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits stale detection between the live incident-service replicas. Each replica holds a lease in
+ * {@code stale_detector_members}, renewed every {@code heartbeat-ms}, and owns the incidents that
+ * rendezvous-hash to it among the replicas with an unexpired lease. A replica that stops renewing drops
+ * out once its lease expires and its incidents spread over the others; only those move when the set of
+ * replicas changes.
+ *
+ * <p>A replica that can't renew its own lease owns nothing until it can, since the others will have
+ * taken over its share by then.
+ */
+@Slf4j
+@Component
+public class DetectorMembership {
+
+    private final DetectorMemberRepository memberRepository;
+    private final String memberId = UUID.randomUUID().toString();
+    private final Duration lease;
+    private volatile List<String> members = List.of();
+    private volatile Instant leaseExpiresAt = Instant.MIN;
+
+    public DetectorMembership(DetectorMemberRepository memberRepository,
+            MeterRegistry meterRegistry,
+            @Value("${pulseops.incident.stale.membership.lease-ms:30000}") long leaseMillis) {
+        this.memberRepository = memberRepository;
+        this.lease = Duration.ofMillis(leaseMillis);
+        Gauge.builder("incident.stale.members", this, membership -> membership.members.size())
+                .description("Replicas sharing stale detection, as seen by this one")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${pulseops.incident.stale.membership.heartbeat-ms:10000}")
+    public void heartbeat() {
+        Instant now = Instant.now();
+        try {
+            memberRepository.save(new DetectorMember(memberId, now.plus(lease)));
+            leaseExpiresAt = now.plus(lease);
+            List<String> live = memberRepository.findLive(now).stream()
+                    .map(DetectorMember::getId)
+                    .sorted()
+                    .toList();
+            if (!live.equals(members)) {
+                log.info("Stale detection members changed: {} -> {} replicas", members.size(), live.size());
+            }
+            members = live;
+        } catch (Exception e) {
+            log.warn("Failed to renew stale detection lease: {}", e.getMessage());
+            if (!now.isBefore(leaseExpiresAt)) {
+                members = List.of();
+            }
+        }
+    }
+
+    /** Whether this replica holds a lease and knows who it shares the work with. */
+    public boolean isActive() {
+        return members.contains(memberId) && Instant.now().isBefore(leaseExpiresAt);
+    }
+
+    /** Whether this replica is responsible for the incident; false while not {@link #isActive() active}. */
+    public boolean owns(String incidentId) {
+        if (!isActive()) {
+            return false;
+        }
+        List<String> current = members;
+        String owner = null;
+        long highest = Long.MIN_VALUE;
+        for (String member : current) {
+            long weight = mix(member.hashCode() * 31L + incidentId.hashCode());
+            if (owner == null || weight > highest) {
+                owner = member;
+                highest = weight;
+            }
+        }
+        return memberId.equals(owner);
+    }
+
+    /** How long a replica that stopped renewing keeps its share. */
+    public Duration getLease() {
+        return lease;
+    }
+
+    @PreDestroy
+    public void leave() {
+        members = List.of();
+        try {
+            // Hands this replica's share over now instead of when the lease runs out
+            memberRepository.deleteById(memberId);
+        } catch (Exception e) {
+            log.warn("Failed to release stale detection lease: {}", e.getMessage());
+        }
+    }
+
+    // SplitMix64 finalizer, so weights for neighbouring hash codes aren't correlated
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,75 +1,298 @@
 package com.pulseops.incident.scheduler;
 
-import com.pulseops.incident.messaging.EventPublisher;
+import com.pulseops.incident.messaging.EventEnvelope;
 import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.repository.DocumentField;
 import com.pulseops.incident.repository.IncidentRepository;
-import lombok.RequiredArgsConstructor;
+import com.pulseops.incident.service.IncidentCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Flags active incidents stale once they have gone {@code threshold-minutes} without activity.
+ *
+ * <p>Each candidate's deadline ({@code lastActivityAt + threshold}) is kept in a {@link DeadlineWheel} that
+ * is loaded from Mongo on the first tick and then kept current from this replica's writes and from the
+ * {@code incident.*} events of all replicas, so an incident is flagged within a tick of its deadline
+ * instead of at the next scan. The wheel is only a hint: marking is conditional on the incident really
+ * being stale, and one that fires early is rescheduled from its stored lastActivityAt. The periodic scan
+ * remains as a safety net for deadlines the wheel missed, e.g. events lost while this replica was down.
+ *
+ * <p>Incidents come due in bursts after an outage, so both paths flag them in chunks of {@code chunk-size}
+ * with one bulk write each; their events go out through the outbox relay's batched sends.
+ *
+ * <p>Every replica tracks every deadline, but only flags the incidents its {@link DetectorMembership} says
+ * it owns. Others that come due are looked at again a lease later: normally their owner's
+ * {@code stale_detected} event has cancelled them by then, otherwise the owner is gone and the incident
+ * may have become this replica's.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class StaleIncidentDetector {
 
-    private final IncidentRepository incidentRepository;
-    private final EventPublisher eventPublisher;
-
-    @Value("${pulseops.incident.stale.threshold-minutes:30}")
-    private int staleThresholdMinutes;
-
     private static final List<Incident.IncidentStatus> ACTIVE_STATUSES = List.of(
             Incident.IncidentStatus.INVESTIGATING,
             Incident.IncidentStatus.MITIGATED
     );
+    private static final String STALE_DETECTED = "incident.stale_detected";
+
+    private final IncidentRepository incidentRepository;
+    private final IncidentCache incidentCache;
+    private final DetectorMembership membership;
+    private final Duration staleThreshold;
+    private final DeadlineWheel deadlines;
+    private final int chunkSize;
+    private final MeterRegistry meterRegistry;
+    private final Timer detectionDelay;
+    private final Counter marked;
+    private volatile boolean loaded;
+
+    public StaleIncidentDetector(IncidentRepository incidentRepository,
+            IncidentCache incidentCache,
+            DetectorMembership membership,
+            MeterRegistry meterRegistry,
+            @Value("${pulseops.incident.stale.threshold-minutes:30}") int staleThresholdMinutes,
+            @Value("${pulseops.incident.stale.tick-ms:1000}") long tickMillis,
+            @Value("${pulseops.incident.stale.wheel-size:4096}") int wheelSize,
+            @Value("${pulseops.incident.stale.chunk-size:500}") int chunkSize) {
+        this.incidentRepository = incidentRepository;
+        this.incidentCache = incidentCache;
+        this.membership = membership;
+        this.staleThreshold = Duration.ofMinutes(staleThresholdMinutes);
+        this.deadlines = new DeadlineWheel(tickMillis, wheelSize);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.meterRegistry = meterRegistry;
+        this.detectionDelay = Timer.builder("incident.stale.detection.delay")
+                .description("Time from an incident's stale deadline to it being flagged")
+                .register(meterRegistry);
+        this.marked = Counter.builder("incident.stale.marked")
+                .description("Incidents flagged stale")
+                .register(meterRegistry);
+        Gauge.builder("incident.stale.tracked", deadlines, DeadlineWheel::size)
+                .description("Active incidents with a stale deadline being tracked")
+                .register(meterRegistry);
+    }
 
-    @Scheduled(fixedRateString = "${pulseops.incident.stale.check-interval-ms:300000}")
+    /** Flags the incidents whose deadline has passed since the previous tick. */
+    @Scheduled(fixedDelayString = "${pulseops.incident.stale.tick-ms:1000}")
+    public void markDueIncidents() {
+        if (!loaded && !loadDeadlines()) {
+            return;
+        }
+        if (!membership.isActive()) {
+            // Deadlines stay in the wheel until this replica knows its share
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Long> due = deadlines.advance(now);
+        Map<String, Long> owned = new LinkedHashMap<>();
+        due.forEach((id, deadline) -> {
+            if (membership.owns(id)) {
+                owned.put(id, deadline);
+            } else {
+                deadlines.schedule(id, now + membership.getLease().toMillis());
+            }
+        });
+        markStale(owned, "deadline");
+    }
+
+    /** Reconciliation scan for incidents whose deadline the wheel missed. */
+    @Scheduled(fixedRateString = "${pulseops.incident.stale.check-interval-ms:900000}")
     public void detectStaleIncidents() {
-        log.debug("Running stale incident detection job");
+        if (!membership.isActive()) {
+            return;
+        }
+        log.debug("Running stale incident reconciliation scan");
+
+        Instant threshold = Instant.now().minus(staleThreshold);
 
-        Instant threshold = Instant.now().minus(staleThresholdMinutes, ChronoUnit.MINUTES);
-        
-        List<Incident> staleIncidents = incidentRepository.findStaleIncidents(ACTIVE_STATUSES, threshold);
-        
-        log.info("Found {} stale incidents (threshold: {} minutes)", 
-                staleIncidents.size(), staleThresholdMinutes);
+        List<Incident> staleIncidents = incidentRepository.findStaleIncidents(ACTIVE_STATUSES, threshold).stream()
+                .filter(incident -> membership.owns(incident.getId()))
+                .toList();
 
+        if (!staleIncidents.isEmpty()) {
+            log.warn("Reconciliation scan found {} stale incidents missed by the deadline wheel (threshold: {} minutes)",
+                    staleIncidents.size(), staleThreshold.toMinutes());
+        }
+
+        Map<String, Long> deadlinesById = new LinkedHashMap<>();
         for (Incident incident : staleIncidents) {
-            markIncidentStale(incident);
+            deadlinesById.put(incident.getId(), incident.getLastActivityAt().plus(staleThreshold).toEpochMilli());
+        }
+        markStale(deadlinesById, "scan");
+    }
+
+    /** Tracks (or stops tracking) an incident after a write made by this replica. */
+    public void recordActivity(String id, Incident.IncidentStatus status, boolean stale, Instant lastActivityAt) {
+        if (ACTIVE_STATUSES.contains(status) && !stale && lastActivityAt != null) {
+            deadlines.schedule(id, lastActivityAt.plus(staleThreshold).toEpochMilli());
+        } else {
+            deadlines.cancel(id);
+        }
+    }
+
+    public void recordActivity(Incident incident) {
+        recordActivity(incident.getId(), incident.getStatus(), incident.isStale(), incident.getLastActivityAt());
+    }
+
+    /**
+     * Tracks an incident after an event from any replica. Events that don't say which status the incident
+     * is in schedule it anyway; if it isn't active by then, the deadline just passes without effect.
+     */
+    public void onIncidentEvent(EventEnvelope event) {
+        String id = event.getIncidentId();
+        if (id == null || event.getOccurredAt() == null) {
+            return;
+        }
+        if (STALE_DETECTED.equals(event.getType())) {
+            deadlines.cancel(id);
+            return;
+        }
+        Incident.IncidentStatus status = statusOf(event.getPayload());
+        if (status == null || ACTIVE_STATUSES.contains(status)) {
+            deadlines.schedule(id, event.getOccurredAt().plus(staleThreshold).toEpochMilli());
+        } else {
+            deadlines.cancel(id);
         }
     }
 
-    private void markIncidentStale(Incident incident) {
+    private boolean loadDeadlines() {
+        long started = System.currentTimeMillis();
+        try (Stream<Incident> candidates = incidentRepository.streamStaleCandidates(ACTIVE_STATUSES)) {
+            Iterator<Incident> iterator = candidates.iterator();
+            while (iterator.hasNext()) {
+                recordActivity(iterator.next());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load stale deadlines, retrying next tick: {}", e.getMessage());
+            return false;
+        }
+        loaded = true;
+        log.info("Loaded {} stale deadlines in {} ms", deadlines.size(), System.currentTimeMillis() - started);
+        return true;
+    }
+
+    /**
+     * Flags the given incidents in chunks and reports the run. Runs with nothing due aren't reported, so
+     * the per-second deadline ticks don't swamp the run metrics.
+     */
+    private void markStale(Map<String, Long> deadlinesById, String trigger) {
+        if (deadlinesById.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<String> ids = new ArrayList<>(deadlinesById.keySet());
+        int flagged = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            flagged += markChunk(ids.subList(from, Math.min(from + chunkSize, ids.size())), deadlinesById);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        Timer.builder("incident.stale.run.duration")
+                .description("Duration of stale marking runs that had incidents due")
+                .tag("trigger", trigger)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(elapsedNanos));
+        DistributionSummary.builder("incident.stale.run.items")
+                .description("Incidents due per stale marking run")
+                .tag("trigger", trigger)
+                .register(meterRegistry)
+                .record(ids.size());
+
+        log.info("Stale marking run: trigger={}, due={}, marked={}, chunks={}, took={} ms", trigger, ids.size(),
+                flagged, (ids.size() + chunkSize - 1) / chunkSize, Duration.ofNanos(elapsedNanos).toMillis());
+    }
+
+    /** Flags one chunk with a single bulk write and brings the wheel in line with the outcome. */
+    private int markChunk(List<String> ids, Map<String, Long> deadlinesById) {
+        // Millisecond precision, as stored, so the incidents flagged here can be recognised on re-read
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<String, EventEnvelope> eventsById = new LinkedHashMap<>();
+        for (String id : ids) {
+            eventsById.put(id, staleDetectedEvent(id, now));
+        }
+
+        int flagged;
         try {
-            incident.setStale(true);
-            incident.setLastActivityAt(Instant.now());
-            
-            Incident saved = incidentRepository.save(incident);
-            
-            log.info("Marked incident as stale: id={}, status={}, lastActivityAt={}",
-                    saved.getId(), saved.getStatus(), incident.getLastActivityAt());
-
-            // Generate correlation ID for this automated action
-            String correlationId = "stale-detector-" + java.util.UUID.randomUUID();
-            
-            eventPublisher.publish("incident.stale_detected", saved.getId(), correlationId,
-                    Map.of(
-                            "id", saved.getId(),
-                            "status", saved.getStatus(),
-                            "severity", saved.getSeverity(),
-                            "assignee", saved.getAssignee(),
-                            "staleSince", saved.getLastActivityAt(),
-                            "detectedAt", Instant.now()
-                    ));
+            // Conditional on each incident still being stale, whatever the wheel thought its deadline was
+            flagged = incidentRepository.markStale(eventsById, ACTIVE_STATUSES, now.minus(staleThreshold), now);
         } catch (Exception e) {
-            log.error("Failed to mark incident as stale: id={}", incident.getId(), e);
+            log.error("Failed to mark {} incidents as stale, retrying next tick", ids.size(), e);
+            ids.forEach(id -> deadlines.schedule(id, deadlinesById.get(id)));
+            return 0;
+        }
+
+        ids.forEach(deadlines::cancel);
+        if (flagged == ids.size()) {
+            ids.forEach(id -> recordDetection(id, deadlinesById.get(id), now));
+        } else {
+            // Some had activity not seen here yet; track those as they are stored
+            for (Incident incident : incidentRepository.findStatuses(ids)) {
+                if (incident.isStale() && now.equals(incident.getLastActivityAt())) {
+                    recordDetection(incident.getId(), deadlinesById.get(incident.getId()), now);
+                } else {
+                    log.debug("Incident not stale at its deadline, rescheduling: id={}", incident.getId());
+                    recordActivity(incident);
+                }
+            }
+        }
+        // Only the flags are known here, not the full documents, so the next read reloads them
+        incidentCache.invalidateAll(ids);
+        marked.increment(flagged);
+        return flagged;
+    }
+
+    private void recordDetection(String id, long deadlineMillis, Instant now) {
+        detectionDelay.record(Duration.ofMillis(Math.max(0, now.toEpochMilli() - deadlineMillis)));
+        log.debug("Marked incident as stale: id={}, deadline={}", id, Instant.ofEpochMilli(deadlineMillis));
+    }
+
+    private static EventEnvelope staleDetectedEvent(String id, Instant now) {
+        // Generate correlation ID for this automated action
+        String correlationId = "stale-detector-" + UUID.randomUUID();
+
+        Map<String, Object> stalePayload = new HashMap<>();
+        stalePayload.put("id", id);
+        stalePayload.put("status", new DocumentField("status"));
+        stalePayload.put("severity", new DocumentField("severity"));
+        stalePayload.put("assignee", new DocumentField("assignee"));
+        stalePayload.put("lastActivityAt", new DocumentField("lastActivityAt"));
+        stalePayload.put("staleSince", now);
+        stalePayload.put("detectedAt", now);
+        return EventEnvelope.create(STALE_DETECTED, id, correlationId, stalePayload);
+    }
+
+    private static Incident.IncidentStatus statusOf(Object payload) {
+        if (!(payload instanceof Map<?, ?> fields)) {
+            return null;
+        }
+        Object status = fields.containsKey("newStatus") ? fields.get("newStatus") : fields.get("status");
+        if (status instanceof Incident.IncidentStatus incidentStatus) {
+            return incidentStatus;
+        }
+        try {
+            return status != null ? Incident.IncidentStatus.valueOf(status.toString()) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 }
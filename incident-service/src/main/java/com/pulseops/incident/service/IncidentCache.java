@@ -0,0 +1,96 @@
+package com.pulseops.incident.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pulseops.incident.model.Incident;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process read-through cache of incidents by id.
+ *
+ * <p>This replica's own writes go straight into the cache. Writes by other replicas reach it as
+ * {@code incident.*} domain events, which drop the entry; the time-to-live only bounds staleness if
+ * an event never arrives. Writers racing to store the same incident keep the higher version, and an
+ * invalidation arriving while a load is in flight waits for it and then drops its result.
+ */
+@Slf4j
+@Component
+public class IncidentCache {
+
+    private final boolean enabled;
+    private final Cache<String, Incident> cache;
+    private final Timer invalidationLag;
+
+    public IncidentCache(MeterRegistry meterRegistry,
+            @Value("${pulseops.incident.cache.enabled:true}") boolean enabled,
+            @Value("${pulseops.incident.cache.max-size:10000}") long maxSize,
+            @Value("${pulseops.incident.cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidationLag = Timer.builder("incident.cache.invalidation.lag")
+                .description("Time from an incident write to the event invalidating cached copies of it")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "incident");
+        Gauge.builder("incident.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of incident lookups answered from the cache since startup")
+                .register(meterRegistry);
+        log.info("Incident cache: enabled={}, maxSize={}, ttl={}", enabled, maxSize, ttl);
+    }
+
+    /** The cached incident, or the one {@code loader} finds, which is then cached. */
+    public Optional<Incident> get(String id, Function<String, Optional<Incident>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /** Write-through of an incident this replica just wrote. */
+    public void put(Incident incident) {
+        if (enabled && incident != null) {
+            cache.asMap().merge(incident.getId(), incident,
+                    (cached, written) -> version(written) >= version(cached) ? written : cached);
+        }
+    }
+
+    public void invalidate(String id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    public void invalidateAll(Collection<String> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    /** Drops an incident another writer changed at {@code writtenAt}, recording how long that took to reach us. */
+    public void invalidate(String id, Instant writtenAt) {
+        invalidate(id);
+        if (writtenAt != null) {
+            invalidationLag.record(Duration.between(writtenAt, Instant.now()));
+        }
+    }
+
+    // Incidents written before versioning count as oldest
+    private static long version(Incident incident) {
+        return incident.getVersion() != null ? incident.getVersion() : -1;
+    }
+}
@@ -0,0 +1,39 @@
+package com.pulseops.incident.service;
+
+import com.pulseops.incident.model.Incident;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for incident listing: the {@code (lastActivityAt, id)} of the last incident on a page.
+ */
+public record IncidentCursor(Instant lastActivityAt, String id) {
+
+    public static IncidentCursor after(Incident incident) {
+        return new IncidentCursor(incident.getLastActivityAt(), incident.getId());
+    }
+
+    public String encode() {
+        String raw = lastActivityAt.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static IncidentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new IncidentCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))),
+                    raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.pulseops.incident.service;
+
+import com.pulseops.incident.messaging.EventEnvelope;
+import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.model.IncidentFilter;
+import com.pulseops.incident.repository.IncidentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * In-memory read model answering filtered listings and counts without a Mongo query. Every incident gets a
+ * dense ordinal, and there is one compressed bitmap of ordinals per status, severity, tag and assignee, so a
+ * filter is a few bitmap unions and intersections. Listing then picks the page from the matching ordinals
+ * by {@code (lastActivityAt, id)}; only that page is read from Mongo. Picking a page walks every match, so
+ * listings Mongo can page along an index (status and severity only) don't come here.
+ *
+ * <p>The index is loaded from Mongo in the background and reloaded every {@code rebuild-interval}. In
+ * between, this replica's writes are applied as they are made and other replicas' arrive as
+ * {@code incident.*} events, so it trails them by the event delivery lag. A change is only applied if it is
+ * at least as recent as what the index holds, by lastActivityAt, which every write sets. An event only
+ * changes the fields its payload carries, so a write that changes tags must put them in its event (as
+ * {@code incident.updated} does); otherwise other replicas keep the old tags until the next reload. Until
+ * the first load completes, or with {@code enabled: false}, callers fall back to Mongo.
+ */
+@Slf4j
+@Component
+public class IncidentIndex {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final String CREATED = "incident.created";
+
+    private final IncidentRepository incidentRepository;
+    private final boolean enabled;
+    private final long rebuildIntervalMillis;
+    private final Timer rebuildTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private State state = new State();
+    private boolean rebuilding;
+    private final Set<String> changedDuringRebuild = new HashSet<>();
+    private volatile boolean ready;
+    private volatile long lastRebuiltAt;
+
+    public IncidentIndex(IncidentRepository incidentRepository,
+            MeterRegistry meterRegistry,
+            @Value("${pulseops.incident.index.enabled:true}") boolean enabled,
+            @Value("${pulseops.incident.index.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.incidentRepository = incidentRepository;
+        this.enabled = enabled;
+        this.rebuildIntervalMillis = rebuildInterval.toMillis();
+        this.rebuildTimer = Timer.builder("incident.index.rebuild")
+                .description("Time to load the incident filter index from Mongo")
+                .register(meterRegistry);
+        Gauge.builder("incident.index.size", this, IncidentIndex::size)
+                .description("Incidents held in the filter index")
+                .register(meterRegistry);
+    }
+
+    /** Whether listings and counts can be answered from the index. */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /** Loads the index at startup, retries a failed load and reloads it once it is due. */
+    @Scheduled(fixedDelayString = "${pulseops.incident.index.check-interval-ms:5000}")
+    public void rebuildIfDue() {
+        if (!enabled || (ready && System.currentTimeMillis() - lastRebuiltAt < rebuildIntervalMillis)) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Up to {@code limit} positions of matching incidents, most recently active first, starting strictly
+     * after {@code after} (or from the top when null). Costs {@code O(matches · log limit)}, so it suits
+     * selective filters rather than paging through the whole index.
+     */
+    public List<IncidentCursor> page(IncidentFilter filter, IncidentCursor after, int limit) {
+        long afterMillis = after != null ? after.lastActivityAt().toEpochMilli() : 0;
+        lock.readLock().lock();
+        try {
+            State current = state;
+            Comparator<Integer> order = current.activityOrder();
+            // Min-heap of the best candidates so far: the head is the first to give way to a better one
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, order);
+            IntIterator ordinals = current.match(filter).getIntIterator();
+            while (ordinals.hasNext()) {
+                int ordinal = ordinals.next();
+                if (after != null && !current.isBefore(ordinal, afterMillis, after.id())) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(ordinal);
+                } else if (order.compare(ordinal, top.peek()) > 0) {
+                    top.poll();
+                    top.add(ordinal);
+                }
+            }
+            List<IncidentCursor> positions = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Entry entry = current.entries.get(top.poll());
+                positions.add(new IncidentCursor(Instant.ofEpochMilli(entry.lastActivityAt()), entry.id()));
+            }
+            Collections.reverse(positions);
+            return positions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of matching incidents in each status; statuses with none are present with 0. */
+    public Map<Incident.IncidentStatus, Long> countByStatus(IncidentFilter filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = state.match(filter);
+            Map<Incident.IncidentStatus, Long> counts = new EnumMap<>(Incident.IncidentStatus.class);
+            for (Incident.IncidentStatus status : Incident.IncidentStatus.values()) {
+                RoaringBitmap withStatus = state.byStatus.get(status);
+                counts.put(status, withStatus != null ? RoaringBitmap.andCardinality(matches, withStatus) : 0L);
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Records an incident as this replica just wrote it. */
+    public void put(Incident incident) {
+        if (!enabled || incident.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            noteChange(incident.getId());
+            state.put(Entry.of(incident));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Records a status change this replica made without reading the incident back. */
+    public void updateStatus(String id, Incident.IncidentStatus status, Instant lastActivityAt) {
+        if (!enabled) {
+            return;
+        }
+        boolean known = update(id, entry -> entry.with(status, entry.severity(), entry.assignee(), entry.tags(),
+                lastActivityAt.toEpochMilli()));
+        // Before the first load completes the load itself picks it up
+        if (!known && ready) {
+            refresh(List.of(id));
+        }
+    }
+
+    /** Applies an {@code incident.*} event from any replica, this one included. */
+    public void apply(EventEnvelope event) {
+        String id = event.getIncidentId();
+        if (!enabled || id == null || !(event.getPayload() instanceof Map<?, ?> payload)) {
+            return;
+        }
+        // Events written before lastActivityAt was added to their payloads carry their own time instead
+        Instant lastActivityAt = instantOf(payload.get("lastActivityAt"));
+        if (lastActivityAt == null) {
+            lastActivityAt = event.getOccurredAt();
+        }
+        if (lastActivityAt == null) {
+            return;
+        }
+        long activity = lastActivityAt.toEpochMilli();
+        Incident.IncidentStatus status = statusOf(payload.containsKey("newStatus")
+                ? payload.get("newStatus") : payload.get("status"));
+
+        if (CREATED.equals(event.getType())) {
+            Entry created = new Entry(id, status, stringOf(payload.get("severity")),
+                    stringOf(payload.get("assignee")), tagsOf(payload.get("tags")), activity);
+            lock.writeLock().lock();
+            try {
+                noteChange(id);
+                state.put(created);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        boolean known = update(id, entry -> entry.with(
+                status != null ? status : entry.status(),
+                payload.containsKey("severity") ? stringOf(payload.get("severity")) : entry.severity(),
+                payload.containsKey("assignee") ? stringOf(payload.get("assignee")) : entry.assignee(),
+                payload.containsKey("tags") ? tagsOf(payload.get("tags")) : entry.tags(),
+                activity));
+        if (!known && ready) {
+            refresh(List.of(id));
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        State loaded = new State();
+        try (Stream<Incident> incidents = incidentRepository.streamForIndex(LOAD_BATCH_SIZE)) {
+            Iterator<Incident> iterator = incidents.iterator();
+            while (iterator.hasNext()) {
+                loaded.put(Entry.of(iterator.next()));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load incident index, retrying: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        List<String> changed;
+        lock.writeLock().lock();
+        try {
+            state = loaded;
+            rebuilding = false;
+            changed = new ArrayList<>(changedDuringRebuild);
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // The load may have read these before they changed; read them again so the new index has them
+        refresh(changed);
+        ready = true;
+        lastRebuiltAt = System.currentTimeMillis();
+
+        long elapsedNanos = System.nanoTime() - started;
+        rebuildTimer.record(Duration.ofNanos(elapsedNanos));
+        log.info("Loaded incident index: incidents={}, changedDuringLoad={}, took={} ms",
+                loaded.entries.size(), changed.size(), Duration.ofNanos(elapsedNanos).toMillis());
+    }
+
+    /** Applies {@code change} to the incident's entry; false if the index doesn't have it. */
+    private boolean update(String id, UnaryOperator<Entry> change) {
+        lock.writeLock().lock();
+        try {
+            noteChange(id);
+            Entry current = state.get(id);
+            if (current == null) {
+                return false;
+            }
+            state.put(change.apply(current));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Reads incidents the index can't update in place from Mongo. */
+    private void refresh(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Incident> incidents;
+        try {
+            incidents = incidentRepository.findForIndex(ids);
+        } catch (Exception e) {
+            // The next rebuild picks them up
+            log.warn("Failed to refresh {} incidents in the index: {}", ids.size(), e.getMessage());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            incidents.forEach(incident -> state.put(Entry.of(incident)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held
+    private void noteChange(String id) {
+        if (rebuilding) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    private static Incident.IncidentStatus statusOf(Object value) {
+        if (value instanceof Incident.IncidentStatus status) {
+            return status;
+        }
+        try {
+            return value != null ? Incident.IncidentStatus.valueOf(value.toString()) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String stringOf(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static List<String> tagsOf(Object value) {
+        if (!(value instanceof Collection<?> tags)) {
+            return List.of();
+        }
+        return tags.stream().filter(Objects::nonNull).map(Object::toString).distinct().toList();
+    }
+
+    /**
+     * Payload times arrive as whatever the outbox and JSON round trips made of them: dates read back from
+     * Mongo serialize as epoch milliseconds, instants as ISO strings or decimal epoch seconds.
+     */
+    private static Instant instantOf(Object value) {
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof Date date) {
+            return date.toInstant();
+        }
+        if (value instanceof Long || value instanceof Integer) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        if (value instanceof Number seconds) {
+            return Instant.ofEpochMilli(Math.round(seconds.doubleValue() * 1000));
+        }
+        if (value instanceof String text) {
+            try {
+                return Instant.parse(text);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /** What the index holds of one incident. */
+    private record Entry(String id, Incident.IncidentStatus status, String severity, String assignee,
+                         List<String> tags, long lastActivityAt) {
+
+        static Entry of(Incident incident) {
+            List<String> tags = incident.getTags() != null
+                    ? incident.getTags().stream().filter(Objects::nonNull).distinct().toList()
+                    : List.of();
+            long lastActivityAt = incident.getLastActivityAt() != null ? incident.getLastActivityAt().toEpochMilli() : 0;
+            return new Entry(incident.getId(), incident.getStatus(), incident.getSeverity(), incident.getAssignee(),
+                    tags, lastActivityAt);
+        }
+
+        Entry with(Incident.IncidentStatus status, String severity, String assignee, List<String> tags,
+                   long lastActivityAt) {
+            return new Entry(id, status, severity, assignee, tags, lastActivityAt);
+        }
+    }
+
+    /** Ordinals, entries and bitmaps; not thread-safe, guarded by the index's lock. */
+    private static final class State {
+
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<Incident.IncidentStatus, RoaringBitmap> byStatus = new EnumMap<>(Incident.IncidentStatus.class);
+        private final Map<String, RoaringBitmap> bySeverity = new HashMap<>();
+        private final Map<String, RoaringBitmap> byTag = new HashMap<>();
+        private final Map<String, RoaringBitmap> byAssignee = new HashMap<>();
+
+        Entry get(String id) {
+            Integer ordinal = ordinals.get(id);
+            return ordinal != null ? entries.get(ordinal) : null;
+        }
+
+        /** Adds or replaces the incident's entry, unless the index already has more recent activity for it. */
+        void put(Entry entry) {
+            Integer ordinal = ordinals.get(entry.id());
+            if (ordinal == null) {
+                ordinal = entries.size();
+                ordinals.put(entry.id(), ordinal);
+                entries.add(entry);
+                all.add(ordinal);
+                index(ordinal, entry, true);
+                return;
+            }
+            Entry current = entries.get(ordinal);
+            if (entry.lastActivityAt() < current.lastActivityAt()) {
+                return;
+            }
+            index(ordinal, current, false);
+            entries.set(ordinal, entry);
+            index(ordinal, entry, true);
+        }
+
+        private void index(int ordinal, Entry entry, boolean add) {
+            if (entry.status() != null) {
+                mark(byStatus, entry.status(), ordinal, add);
+            }
+            if (entry.severity() != null) {
+                mark(bySeverity, entry.severity(), ordinal, add);
+            }
+            if (entry.assignee() != null) {
+                mark(byAssignee, entry.assignee(), ordinal, add);
+            }
+            for (String tag : entry.tags()) {
+                mark(byTag, tag, ordinal, add);
+            }
+        }
+
+        private static <K> void mark(Map<K, RoaringBitmap> bitmaps, K key, int ordinal, boolean add) {
+            if (add) {
+                bitmaps.computeIfAbsent(key, k -> new RoaringBitmap()).add(ordinal);
+                return;
+            }
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.remove(ordinal);
+                // Dropped when empty, so values nobody uses any more (old tags, former assignees) don't pile up
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+
+        /** Ordinals matching the filter. The result may be one of the index's own bitmaps; don't modify it. */
+        RoaringBitmap match(IncidentFilter filter) {
+            RoaringBitmap result = all;
+            if (!filter.statuses().isEmpty()) {
+                result = RoaringBitmap.and(result, union(byStatus, filter.statuses()));
+            }
+            if (!filter.severities().isEmpty()) {
+                result = RoaringBitmap.and(result, union(bySeverity, filter.severities()));
+            }
+            if (!filter.assignees().isEmpty()) {
+                result = RoaringBitmap.and(result, union(byAssignee, filter.assignees()));
+            }
+            if (!filter.tags().isEmpty()) {
+                result = RoaringBitmap.and(result, filter.allTags()
+                        ? intersection(byTag, filter.tags())
+                        : union(byTag, filter.tags()));
+            }
+            return result;
+        }
+
+        private static <K> RoaringBitmap union(Map<K, RoaringBitmap> bitmaps, Set<K> keys) {
+            List<RoaringBitmap> matching = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                RoaringBitmap bitmap = bitmaps.get(key);
+                if (bitmap != null) {
+                    matching.add(bitmap);
+                }
+            }
+            return FastAggregation.or(matching.iterator());
+        }
+
+        private static <K> RoaringBitmap intersection(Map<K, RoaringBitmap> bitmaps, Set<K> keys) {
+            List<RoaringBitmap> matching = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                RoaringBitmap bitmap = bitmaps.get(key);
+                if (bitmap == null) {
+                    return new RoaringBitmap();
+                }
+                matching.add(bitmap);
+            }
+            return FastAggregation.and(matching.iterator());
+        }
+
+        /** Listing order: most recent activity first, then id descending, as the Mongo listing sorts. */
+        Comparator<Integer> activityOrder() {
+            return (a, b) -> {
+                Entry left = entries.get(a);
+                Entry right = entries.get(b);
+                int byActivity = Long.compare(left.lastActivityAt(), right.lastActivityAt());
+                return byActivity != 0 ? byActivity : left.id().compareTo(right.id());
+            };
+        }
+
+        /** Whether the entry comes after the cursor position in listing order. */
+        boolean isBefore(int ordinal, long lastActivityAt, String id) {
+            Entry entry = entries.get(ordinal);
+            return entry.lastActivityAt() < lastActivityAt
+                    || (entry.lastActivityAt() == lastActivityAt && entry.id().compareTo(id) < 0);
+        }
+    }
+}
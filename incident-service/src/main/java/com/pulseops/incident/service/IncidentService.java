@@ -1,14 +1,26 @@
 package com.pulseops.incident.service;
 
-import com.pulseops.incident.messaging.EventPublisher;
+import com.mongodb.bulk.BulkWriteError;
+import com.pulseops.incident.messaging.EventEnvelope;
 import com.pulseops.incident.model.Incident;
+import com.pulseops.incident.model.IncidentFilter;
+import com.pulseops.incident.repository.DocumentField;
 import com.pulseops.incident.repository.IncidentRepository;
+import com.pulseops.incident.scheduler.StaleIncidentDetector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,7 +32,9 @@ import java.util.Set;
 public class IncidentService {
 
     private final IncidentRepository incidentRepository;
-    private final EventPublisher eventPublisher;
+    private final IncidentCache incidentCache;
+    private final IncidentIndex incidentIndex;
+    private final StaleIncidentDetector staleIncidentDetector;
 
     // State machine transitions
     private static final Map<Incident.IncidentStatus, Set<Incident.IncidentStatus>> VALID_TRANSITIONS = Map.of(
@@ -36,7 +50,117 @@ public class IncidentService {
             Incident.IncidentStatus.CLOSED, Set.of()  // Terminal state
     );
 
+    // Inverse of VALID_TRANSITIONS: the statuses an incident may be in to move to a given status,
+    // including that status itself since a same-status change is a valid no-op
+    private static final Map<Incident.IncidentStatus, Set<Incident.IncidentStatus>> ALLOWED_FROM = allowedFrom();
+
+    private static final int MAX_TRANSITION_ATTEMPTS = 2;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 256;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Value("${pulseops.incident.bulk.max-items:500}")
+    private int maxBulkItems;
+
     public Incident createIncident(CreateIncidentRequest request, String correlationId) {
+        Incident incident = newIncident(request, Instant.now(), correlationId);
+
+        Incident saved;
+        try {
+            saved = incidentRepository.save(incident);
+        } catch (DuplicateKeyException e) {
+            // Same idempotency key as an incident that is still open: that one is the result
+            List<Incident> existing = request.getIdempotencyKey() != null
+                    ? incidentRepository.findByIdempotencyKeyIn(List.of(request.getIdempotencyKey()))
+                    : List.of();
+            if (existing.isEmpty()) {
+                throw e;
+            }
+            log.info("Collapsed create into existing incident: id={}, idempotencyKey={}, correlationId={}",
+                    existing.get(0).getId(), request.getIdempotencyKey(), correlationId);
+            return existing.get(0);
+        }
+        incidentCache.put(saved);
+        incidentIndex.put(saved);
+        log.info("Created incident: id={}, title={}, correlationId={}", 
+                saved.getId(), saved.getTitle(), correlationId);
+
+        return saved;
+    }
+
+    /**
+     * Creates a batch of incidents with one unordered insert, each carrying its incident.created event in
+     * its outbox. Items repeating an idempotency key, within the batch or of an open incident, resolve to that
+     * incident instead of creating another. Each item gets its own outcome; one bad item fails only itself.
+     *
+     * @throws IllegalArgumentException if the batch is empty or larger than the configured maximum
+     */
+    public BulkCreateResult createIncidents(List<CreateIncidentRequest> requests, String correlationId) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("incidents must not be empty");
+        }
+        if (requests.size() > maxBulkItems) {
+            throw new IllegalArgumentException("At most " + maxBulkItems + " incidents per request");
+        }
+
+        Instant now = Instant.now();
+        BulkItemResult[] results = new BulkItemResult[requests.size()];
+        List<Incident> toInsert = new ArrayList<>();
+        List<Integer> insertedPositions = new ArrayList<>();
+        Map<String, Integer> firstByKey = new HashMap<>();
+        Map<Integer, Integer> repeatOf = new HashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateIncidentRequest request = requests.get(i);
+            String invalid = validate(request);
+            if (invalid != null) {
+                results[i] = BulkItemResult.of(i, BulkItemOutcome.INVALID, null, invalid);
+                continue;
+            }
+            String key = request.getIdempotencyKey();
+            if (key != null) {
+                Integer first = firstByKey.putIfAbsent(key, i);
+                if (first != null) {
+                    repeatOf.put(i, first);
+                    continue;
+                }
+            }
+            toInsert.add(newIncident(request, now, correlationId));
+            insertedPositions.add(i);
+        }
+
+        Map<Integer, BulkWriteError> errors = incidentRepository.insertAll(toInsert);
+
+        Map<String, String> existingIdsByKey = existingIdsByKey(toInsert, errors);
+        for (int j = 0; j < toInsert.size(); j++) {
+            Incident incident = toInsert.get(j);
+            int position = insertedPositions.get(j);
+            BulkWriteError error = errors.get(j);
+            if (error == null) {
+                results[position] = BulkItemResult.of(position, BulkItemOutcome.CREATED, incident.getId(), null);
+                incidentCache.put(incident);
+                incidentIndex.put(incident);
+            } else if (existingIdsByKey.containsKey(incident.getIdempotencyKey())) {
+                results[position] = BulkItemResult.of(position, BulkItemOutcome.DUPLICATE,
+                        existingIdsByKey.get(incident.getIdempotencyKey()), null);
+            } else {
+                results[position] = BulkItemResult.of(position, BulkItemOutcome.FAILED, null, error.getMessage());
+            }
+        }
+        repeatOf.forEach((position, first) -> {
+            BulkItemResult firstResult = results[first];
+            results[position] = firstResult.id() != null
+                    ? BulkItemResult.of(position, BulkItemOutcome.DUPLICATE, firstResult.id(), null)
+                    : BulkItemResult.of(position, BulkItemOutcome.FAILED, null, firstResult.error());
+        });
+
+        BulkCreateResult result = BulkCreateResult.of(List.of(results));
+        log.info("Bulk created incidents: created={}, duplicates={}, failed={}, correlationId={}",
+                result.created(), result.duplicates(), result.failed(), correlationId);
+        return result;
+    }
+
+    /** A new OPEN incident with its incident.created event already in its outbox. */
+    private Incident newIncident(CreateIncidentRequest request, Instant now, String correlationId) {
         Incident incident = Incident.builder()
                 .id(generateIncidentId())
                 .title(request.getTitle())
@@ -44,104 +168,332 @@ public class IncidentService {
                 .severity(request.getSeverity())
                 .assignee(request.getAssignee())
                 .tags(request.getTags())
+                .idempotencyKey(request.getIdempotencyKey())
                 .status(Incident.IncidentStatus.OPEN)
                 .stale(false)
-                .lastActivityAt(Instant.now())
+                .lastActivityAt(now)
                 .build();
+        EventEnvelope created = EventEnvelope.create("incident.created", incident.getId(), correlationId,
+                createdPayload(incident));
+        incident.setPendingEvents(new ArrayList<>(List.of(created)));
+        incident.setOutboxPendingSince(created.getOccurredAt());
+        return incident;
+    }
 
-        Incident saved = incidentRepository.save(incident);
-        log.info("Created incident: id={}, title={}, correlationId={}", 
-                saved.getId(), saved.getTitle(), correlationId);
+    private static String validate(CreateIncidentRequest request) {
+        if (request == null) {
+            return "incident must not be null";
+        }
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            return "title is required";
+        }
+        if (request.getIdempotencyKey() != null && request.getIdempotencyKey().length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return "idempotencyKey must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters";
+        }
+        return null;
+    }
 
-        Map<String, Object> createdPayload = new HashMap<>();
-        createdPayload.put("id", saved.getId());
-        createdPayload.put("title", saved.getTitle());
-        createdPayload.put("severity", saved.getSeverity());
-        createdPayload.put("status", saved.getStatus());
-        createdPayload.put("assignee", saved.getAssignee());
-        eventPublisher.publish("incident.created", saved.getId(), correlationId, createdPayload);
+    /** Ids of the open incidents holding the idempotency keys that made inserts fail as duplicates. */
+    private Map<String, String> existingIdsByKey(List<Incident> inserted, Map<Integer, BulkWriteError> errors) {
+        List<String> keys = new ArrayList<>();
+        errors.forEach((index, error) -> {
+            String key = inserted.get(index).getIdempotencyKey();
+            if (error.getCode() == DUPLICATE_KEY_ERROR && key != null) {
+                keys.add(key);
+            }
+        });
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> idsByKey = new HashMap<>();
+        incidentRepository.findByIdempotencyKeyIn(keys)
+                .forEach(incident -> idsByKey.put(incident.getIdempotencyKey(), incident.getId()));
+        return idsByKey;
+    }
 
-        return saved;
+    private static Map<String, Object> statusChangedPayload(String id, Object previousStatus,
+                                                            Incident.IncidentStatus newStatus, Instant lastActivityAt,
+                                                            String reason, String changedBy) {
+        Map<String, Object> statusPayload = new HashMap<>();
+        statusPayload.put("id", id);
+        statusPayload.put("previousStatus", previousStatus);
+        statusPayload.put("newStatus", newStatus);
+        statusPayload.put("lastActivityAt", lastActivityAt);
+        statusPayload.put("reason", reason);
+        statusPayload.put("changedBy", changedBy);
+        return statusPayload;
     }
 
-    public List<Incident> listIncidents(Incident.IncidentStatus status, String severity) {
-        if (status != null && severity != null) {
-            return incidentRepository.findByStatusAndSeverity(status, severity);
-        } else if (status != null) {
-            return incidentRepository.findByStatus(status);
-        } else if (severity != null) {
-            return incidentRepository.findBySeverity(severity);
-        } else {
-            return incidentRepository.findAll();
-        }
+    private static Map<String, Object> createdPayload(Incident incident) {
+        Map<String, Object> createdPayload = new HashMap<>();
+        createdPayload.put("id", incident.getId());
+        createdPayload.put("title", incident.getTitle());
+        createdPayload.put("severity", incident.getSeverity());
+        createdPayload.put("status", incident.getStatus());
+        createdPayload.put("assignee", incident.getAssignee());
+        createdPayload.put("tags", incident.getTags());
+        createdPayload.put("lastActivityAt", incident.getLastActivityAt());
+        return createdPayload;
     }
 
-    public Optional<Incident> getIncident(String id) {
-        return incidentRepository.findById(id);
+    /**
+     * One page of incidents, most recently active first. Filters on status and severity alone are paged by
+     * Mongo along its compound indexes; tag and assignee filters, which those indexes don't cover, are
+     * answered from the {@link IncidentIndex} once it is loaded. Only the last page holds fewer than
+     * {@code limit} incidents.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public IncidentPage listIncidents(IncidentFilter filter, String cursor, int limit, IncidentView view) {
+        IncidentCursor after = cursor != null ? IncidentCursor.decode(cursor) : null;
+        boolean summary = view == IncidentView.SUMMARY;
+        boolean pagedByMongoIndex = filter.tags().isEmpty() && filter.assignees().isEmpty();
+        if (!pagedByMongoIndex && incidentIndex.isReady()) {
+            return listFromIndex(filter, after, limit, summary);
+        }
+
+        // One extra row tells whether there is a next page without a count query
+        List<Incident> incidents = incidentRepository.findPage(filter,
+                after != null ? after.lastActivityAt() : null,
+                after != null ? after.id() : null,
+                limit + 1, summary);
+
+        if (incidents.size() <= limit) {
+            return new IncidentPage(incidents, null);
+        }
+        List<Incident> page = incidents.subList(0, limit);
+        return new IncidentPage(page, IncidentCursor.after(page.get(limit - 1)).encode());
     }
 
-    public Optional<Incident> updateIncident(String id, UpdateIncidentRequest request, String correlationId) {
-        return incidentRepository.findById(id).map(incident -> {
-            if (request.getTitle() != null) {
-                incident.setTitle(request.getTitle());
+    private IncidentPage listFromIndex(IncidentFilter filter, IncidentCursor after, int limit, boolean summary) {
+        List<Incident> page = new ArrayList<>(limit);
+        IncidentCursor position = after;
+        // The index trails other replicas' writes by the event delivery lag, so some incidents it places on
+        // the page may no longer match; they are dropped and the page topped up from further down
+        while (true) {
+            int wanted = limit - page.size();
+            List<IncidentCursor> positions = incidentIndex.page(filter, position, wanted + 1);
+            List<IncidentCursor> batch = positions.subList(0, Math.min(wanted, positions.size()));
+
+            Map<String, Incident> byId = new HashMap<>();
+            incidentRepository.findAllForPage(batch.stream().map(IncidentCursor::id).toList(), summary)
+                    .forEach(incident -> byId.put(incident.getId(), incident));
+            for (IncidentCursor candidate : batch) {
+                Incident incident = byId.get(candidate.id());
+                if (incident != null && filter.matches(incident)) {
+                    if (summary) {
+                        incident.setTags(null);
+                    }
+                    page.add(incident);
+                }
             }
-            if (request.getDescription() != null) {
-                incident.setDescription(request.getDescription());
+
+            if (positions.size() <= wanted) {
+                return new IncidentPage(page, null);
             }
-            if (request.getSeverity() != null) {
-                incident.setSeverity(request.getSeverity());
+            position = batch.get(wanted - 1);
+            if (page.size() == limit) {
+                return new IncidentPage(page, position.encode());
             }
-            if (request.getAssignee() != null) {
-                incident.setAssignee(request.getAssignee());
+        }
+    }
+
+    /** How many incidents match, in total and by status. */
+    public IncidentCounts countIncidents(IncidentFilter filter) {
+        Map<Incident.IncidentStatus, Long> byStatus;
+        if (incidentIndex.isReady()) {
+            byStatus = incidentIndex.countByStatus(filter);
+        } else {
+            byStatus = new EnumMap<>(Incident.IncidentStatus.class);
+            for (Incident.IncidentStatus status : Incident.IncidentStatus.values()) {
+                boolean included = filter.statuses().isEmpty() || filter.statuses().contains(status);
+                byStatus.put(status, included ? incidentRepository.count(filter.withStatus(status)) : 0L);
             }
-            incident.setLastActivityAt(Instant.now());
+        }
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        return new IncidentCounts(total, byStatus);
+    }
 
-            Incident saved = incidentRepository.save(incident);
-            log.info("Updated incident: id={}, correlationId={}", saved.getId(), correlationId);
+    public Optional<Incident> getIncident(String id) {
+        return incidentCache.get(id, incidentRepository::findById);
+    }
+
+    /**
+     * Sets the non-null fields of {@code request} in one atomic update. If the request carries the version
+     * the client last read, the update only applies while the incident is still at that version.
+     */
+    public UpdateResult updateIncident(String id, UpdateIncidentRequest request, String correlationId) {
+        Map<String, Object> changes = new HashMap<>();
+        if (request.getTitle() != null) {
+            changes.put("title", request.getTitle());
+        }
+        if (request.getDescription() != null) {
+            changes.put("description", request.getDescription());
+        }
+        if (request.getSeverity() != null) {
+            changes.put("severity", request.getSeverity());
+        }
+        if (request.getAssignee() != null) {
+            changes.put("assignee", request.getAssignee());
+        }
+        changes.put("lastActivityAt", Instant.now());
 
-            Map<String, Object> updatedPayload = new HashMap<>();
-            updatedPayload.put("id", saved.getId());
-            updatedPayload.put("title", saved.getTitle());
-            updatedPayload.put("severity", saved.getSeverity());
-            updatedPayload.put("status", saved.getStatus());
-            updatedPayload.put("assignee", saved.getAssignee());
-            eventPublisher.publish("incident.updated", saved.getId(), correlationId, updatedPayload);
+        // The payload reports the incident as it is after the update, including fields not changed by it
+        Map<String, Object> updatedPayload = new HashMap<>();
+        updatedPayload.put("id", id);
+        updatedPayload.put("title", new DocumentField("title"));
+        updatedPayload.put("severity", new DocumentField("severity"));
+        updatedPayload.put("status", new DocumentField("status"));
+        updatedPayload.put("assignee", new DocumentField("assignee"));
+        updatedPayload.put("tags", new DocumentField("tags"));
+        updatedPayload.put("lastActivityAt", new DocumentField("lastActivityAt"));
+        EventEnvelope updated = EventEnvelope.create("incident.updated", id, correlationId, updatedPayload);
 
-            return saved;
-        });
+        Incident saved = incidentRepository.updateFields(id, request.getVersion(), changes, updated);
+        if (saved == null) {
+            // Nothing matched: the incident is gone or has moved past the expected version
+            Optional<Incident> current = incidentRepository.findById(id);
+            if (current.isEmpty()) {
+                return UpdateResult.notFound();
+            }
+            log.warn("Update conflict: id={}, expectedVersion={}, currentVersion={}, correlationId={}",
+                    id, request.getVersion(), current.get().getVersion(), correlationId);
+            return UpdateResult.conflict(current.get().getVersion(), request.getVersion());
+        }
+        incidentCache.put(saved);
+        incidentIndex.put(saved);
+        staleIncidentDetector.recordActivity(saved);
+        log.info("Updated incident: id={}, version={}, correlationId={}", saved.getId(), saved.getVersion(), correlationId);
+
+        return UpdateResult.success(saved);
     }
 
+    /**
+     * Applies a status change as one conditional findAndModify that only matches while the incident is in a
+     * status {@link #VALID_TRANSITIONS} allows the change from, so concurrent changes can't both apply.
+     */
     public StatusChangeResult changeStatus(String id, StatusChangeRequest request, String correlationId) {
-        Optional<Incident> incidentOpt = incidentRepository.findById(id);
-        if (incidentOpt.isEmpty()) {
-            return StatusChangeResult.notFound();
+        Incident.IncidentStatus newStatus = request.getStatus();
+        Instant now = Instant.now();
+        // previousStatus is whatever status the conditional update matched
+        EventEnvelope statusChanged = EventEnvelope.create("incident.status_changed", id, correlationId,
+                statusChangedPayload(id, new DocumentField("status"), newStatus, now, request.getReason(), request.getChangedBy()));
+
+        for (int attempt = 1; ; attempt++) {
+            Incident previous = newStatus != null
+                    ? incidentRepository.transitionStatus(id, ALLOWED_FROM.get(newStatus), newStatus, now, statusChanged)
+                    : null;
+            if (previous != null) {
+                return statusChanged(previous, newStatus, now, correlationId);
+            }
+
+            // Nothing matched: the incident is gone or in a status the change isn't allowed from
+            Optional<Incident> current = incidentRepository.findById(id);
+            if (current.isEmpty()) {
+                return StatusChangeResult.notFound();
+            }
+            Incident.IncidentStatus currentStatus = current.get().getStatus();
+            if (!isValidTransition(currentStatus, newStatus) || attempt == MAX_TRANSITION_ATTEMPTS) {
+                log.warn("Invalid status transition: id={}, from={}, to={}, correlationId={}",
+                        id, currentStatus, newStatus, correlationId);
+                return StatusChangeResult.invalidTransition(currentStatus, newStatus);
+            }
+            // Another change landed between the two reads and made this one valid; try it again
         }
+    }
 
-        Incident incident = incidentOpt.get();
-        Incident.IncidentStatus currentStatus = incident.getStatus();
+    /**
+     * Applies one status change to many incidents. Each incident is checked against {@link #VALID_TRANSITIONS}
+     * from one read of the current statuses, then all valid changes go out as a single bulk write of updates
+     * conditional on the status that was read. An incident changed by someone else in between keeps its
+     * new status and is reported as an invalid transition from it.
+     *
+     * @throws IllegalArgumentException if the request has no ids or status, or more ids than the maximum
+     */
+    public BulkStatusChangeResult changeStatuses(BulkStatusChangeRequest request, String correlationId) {
         Incident.IncidentStatus newStatus = request.getStatus();
+        if (newStatus == null) {
+            throw new IllegalArgumentException("status is required");
+        }
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        Set<String> ids = new LinkedHashSet<>(request.getIds());
+        if (ids.size() > maxBulkItems) {
+            throw new IllegalArgumentException("At most " + maxBulkItems + " incidents per request");
+        }
 
-        // Validate transition
-        if (!isValidTransition(currentStatus, newStatus)) {
-            log.warn("Invalid status transition: id={}, from={}, to={}, correlationId={}",
-                    id, currentStatus, newStatus, correlationId);
-            return StatusChangeResult.invalidTransition(currentStatus, newStatus);
+        Map<String, Incident.IncidentStatus> currentById = new HashMap<>();
+        incidentRepository.findStatuses(ids).forEach(incident -> currentById.put(incident.getId(), incident.getStatus()));
+
+        Map<String, Incident.IncidentStatus> fromById = new LinkedHashMap<>();
+        for (String id : ids) {
+            Incident.IncidentStatus current = currentById.get(id);
+            if (current != null && isValidTransition(current, newStatus)) {
+                fromById.put(id, current);
+            }
         }
 
-        incident.setStatus(newStatus);
-        incident.setLastActivityAt(Instant.now());
+        // Mongo keeps milliseconds; truncating lets the re-read below recognise this write by its timestamp
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<String, EventEnvelope> eventsById = new HashMap<>();
+        fromById.forEach((id, previousStatus) -> eventsById.put(id, EventEnvelope.create("incident.status_changed",
+                id, correlationId, statusChangedPayload(id, previousStatus, newStatus, now, request.getReason(), request.getChangedBy()))));
+        // An update that doesn't apply doesn't write its event either
+        int changed = incidentRepository.transitionStatuses(fromById, newStatus, now, eventsById);
+        if (changed < fromById.size()) {
+            // Some conditional updates lost a race; find out which and what they are now
+            for (Incident incident : incidentRepository.findStatuses(fromById.keySet())) {
+                if (incident.getStatus() != newStatus || !now.equals(incident.getLastActivityAt())) {
+                    fromById.remove(incident.getId());
+                    currentById.put(incident.getId(), incident.getStatus());
+                }
+            }
+        }
 
-        Incident saved = incidentRepository.save(incident);
-        log.info("Status changed: id={}, from={}, to={}, correlationId={}",
-                saved.getId(), currentStatus, newStatus, correlationId);
+        List<BulkStatusChangeItem> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Incident.IncidentStatus previousStatus = fromById.get(id);
+            if (previousStatus != null) {
+                results.add(BulkStatusChangeItem.success(id, previousStatus, newStatus));
+            } else if (!currentById.containsKey(id)) {
+                results.add(BulkStatusChangeItem.notFound(id, newStatus));
+            } else {
+                results.add(BulkStatusChangeItem.invalidTransition(id, currentById.get(id), newStatus));
+            }
+        }
 
-        Map<String, Object> statusPayload = new HashMap<>();
-        statusPayload.put("id", saved.getId());
-        statusPayload.put("previousStatus", currentStatus);
-        statusPayload.put("newStatus", newStatus);
-        statusPayload.put("reason", request.getReason());
-        statusPayload.put("changedBy", request.getChangedBy());
-        eventPublisher.publish("incident.status_changed", saved.getId(), correlationId, statusPayload);
+        // Only the statuses are known here, not the full documents, so the next read reloads them
+        incidentCache.invalidateAll(fromById.keySet());
+        // Stale flags aren't known either; a stale incident scheduled here is dropped when its deadline passes
+        fromById.keySet().forEach(id -> staleIncidentDetector.recordActivity(id, newStatus, false, now));
+        fromById.keySet().forEach(id -> incidentIndex.updateStatus(id, newStatus, now));
+
+        log.info("Bulk status change to {}: requested={}, changed={}, correlationId={}",
+                newStatus, ids.size(), fromById.size(), correlationId);
+        return BulkStatusChangeResult.of(results);
+    }
+
+    private StatusChangeResult statusChanged(Incident previous, Incident.IncidentStatus newStatus, Instant now,
+                                             String correlationId) {
+        Incident.IncidentStatus previousStatus = previous.getStatus();
+        // findAndModify returned the document before the update; apply the same change locally,
+        // mirroring the repository's transition update field for field
+        Incident saved = previous;
+        saved.setStatus(newStatus);
+        saved.setLastActivityAt(now);
+        saved.setUpdatedAt(now);
+        saved.setVersion(previous.getVersion() != null ? previous.getVersion() + 1 : 1L);
+        if (newStatus == Incident.IncidentStatus.CLOSED) {
+            // Closing frees the key for a new incident, so it is unset in the stored document
+            saved.setIdempotencyKey(null);
+        }
+        incidentCache.put(saved);
+        incidentIndex.put(saved);
+        staleIncidentDetector.recordActivity(saved);
+        log.info("Status changed: id={}, from={}, to={}, correlationId={}",
+                saved.getId(), previousStatus, newStatus, correlationId);
 
         return StatusChangeResult.success(saved);
     }
@@ -154,6 +506,20 @@ public class IncidentService {
         return allowedTransitions != null && allowedTransitions.contains(to);
     }
 
+    private static Map<Incident.IncidentStatus, Set<Incident.IncidentStatus>> allowedFrom() {
+        Map<Incident.IncidentStatus, Set<Incident.IncidentStatus>> allowedFrom = new EnumMap<>(Incident.IncidentStatus.class);
+        for (Incident.IncidentStatus to : Incident.IncidentStatus.values()) {
+            Set<Incident.IncidentStatus> from = EnumSet.of(to);
+            VALID_TRANSITIONS.forEach((status, targets) -> {
+                if (targets.contains(to)) {
+                    from.add(status);
+                }
+            });
+            allowedFrom.put(to, from);
+        }
+        return allowedFrom;
+    }
+
     private String generateIncidentId() {
         // Generate ULID-like ID: INC_ + timestamp + random
         String timestamp = Long.toString(Instant.now().toEpochMilli(), 36).toUpperCase();
@@ -162,6 +528,19 @@ public class IncidentService {
     }
 
     // DTOs
+    public record IncidentPage(List<Incident> items, String nextCursor) {
+    }
+
+    public record IncidentCounts(long total, Map<Incident.IncidentStatus, Long> byStatus) {
+    }
+
+    public enum IncidentView {
+        /** Every field. */
+        FULL,
+        /** Without description and tags. */
+        SUMMARY
+    }
+
     @lombok.Data
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
@@ -171,6 +550,46 @@ public class IncidentService {
         private String severity;
         private String assignee;
         private List<String> tags;
+        /** Optional; a create repeating the key of an open incident returns that incident instead. */
+        private String idempotencyKey;
+    }
+
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class BulkCreateRequest {
+        private List<CreateIncidentRequest> incidents;
+    }
+
+    public enum BulkItemOutcome {
+        CREATED,
+        /** Resolved to the open incident already holding its idempotency key. */
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    public record BulkItemResult(int index, BulkItemOutcome outcome, String id, String error) {
+
+        static BulkItemResult of(int index, BulkItemOutcome outcome, String id, String error) {
+            return new BulkItemResult(index, outcome, id, error);
+        }
+    }
+
+    public record BulkCreateResult(int created, int duplicates, int failed, List<BulkItemResult> results) {
+
+        static BulkCreateResult of(List<BulkItemResult> results) {
+            int created = 0;
+            int duplicates = 0;
+            for (BulkItemResult result : results) {
+                if (result.outcome() == BulkItemOutcome.CREATED) {
+                    created++;
+                } else if (result.outcome() == BulkItemOutcome.DUPLICATE) {
+                    duplicates++;
+                }
+            }
+            return new BulkCreateResult(created, duplicates, results.size() - created - duplicates, results);
+        }
     }
 
     @lombok.Data
@@ -181,6 +600,8 @@ public class IncidentService {
         private String description;
         private String severity;
         private String assignee;
+        /** Version the client last read; when set, the update is rejected if the incident has changed since. */
+        private Long version;
     }
 
     @lombok.Data
@@ -192,6 +613,53 @@ public class IncidentService {
         private String changedBy;
     }
 
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class BulkStatusChangeRequest {
+        private List<String> ids;
+        private Incident.IncidentStatus status;
+        private String reason;
+        private String changedBy;
+    }
+
+    /** Per-incident outcome of a bulk status change, with the same flags as {@link StatusChangeResult}. */
+    public record BulkStatusChangeItem(String id, boolean success, boolean notFound, boolean invalidTransition,
+                                       Incident.IncidentStatus previousStatus,
+                                       Incident.IncidentStatus currentStatus,
+                                       Incident.IncidentStatus requestedStatus) {
+
+        static BulkStatusChangeItem success(String id, Incident.IncidentStatus previous, Incident.IncidentStatus requested) {
+            return new BulkStatusChangeItem(id, true, false, false, previous, requested, requested);
+        }
+
+        static BulkStatusChangeItem notFound(String id, Incident.IncidentStatus requested) {
+            return new BulkStatusChangeItem(id, false, true, false, null, null, requested);
+        }
+
+        static BulkStatusChangeItem invalidTransition(String id, Incident.IncidentStatus current,
+                                                      Incident.IncidentStatus requested) {
+            return new BulkStatusChangeItem(id, false, false, true, null, current, requested);
+        }
+    }
+
+    public record BulkStatusChangeResult(int changed, int notFound, int invalidTransitions,
+                                         List<BulkStatusChangeItem> results) {
+
+        static BulkStatusChangeResult of(List<BulkStatusChangeItem> results) {
+            int changed = 0;
+            int notFound = 0;
+            for (BulkStatusChangeItem result : results) {
+                if (result.success()) {
+                    changed++;
+                } else if (result.notFound()) {
+                    notFound++;
+                }
+            }
+            return new BulkStatusChangeResult(changed, notFound, results.size() - changed - notFound, results);
+        }
+    }
+
     // Result type for status change
     @lombok.Data
     @lombok.AllArgsConstructor(access = lombok.AccessLevel.PRIVATE)
@@ -215,4 +683,28 @@ public class IncidentService {
             return new StatusChangeResult(false, false, true, null, current, requested);
         }
     }
+
+    // Result type for field updates
+    @lombok.Data
+    @lombok.AllArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+    public static class UpdateResult {
+        private final boolean success;
+        private final boolean notFound;
+        private final boolean conflict;
+        private final Incident incident;
+        private final Long currentVersion;
+        private final Long expectedVersion;
+
+        public static UpdateResult success(Incident incident) {
+            return new UpdateResult(true, false, false, incident, null, null);
+        }
+
+        public static UpdateResult notFound() {
+            return new UpdateResult(false, true, false, null, null, null);
+        }
+
+        public static UpdateResult conflict(Long current, Long expected) {
+            return new UpdateResult(false, false, true, null, current, expected);
+        }
+    }
 }
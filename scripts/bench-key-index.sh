@@ -0,0 +1,223 @@
+#!/bin/bash
+
+# PulseOps v3.0 - API Key Index Benchmark
+# Measures /internal/verify throughput for valid and for unknown keys against a
+# running secrets-service, and reports how the in-memory key index answered them
+# and how many bytes the service allocated per verification.
+#
+# Run it once with the index enabled (the default) and once without it to compare:
+#
+#   cd secrets-service && mvn spring-boot:run -Dspring-boot.run.arguments="\
+#       --pulseops.secrets.key-index.enabled=false"
+#
+# Allocation is read from jvm.gc.memory.allocated around a forced GC, so it needs
+# jcmd on the PATH; it includes the HTTP handling, not just the hashing and lookup.
+#
+# Usage: ./scripts/bench-key-index.sh [verifications-per-run] [concurrency]
+#   SECRETS_PID  secrets-service process id (default: the java process running it)
+
+set -e  # Exit on error
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+# Configuration
+SECRETS_HOST="${SECRETS_HOST:-127.0.0.1}"
+SECRETS_PORT="${SECRETS_PORT:-8081}"
+SECRETS_URL="http://$SECRETS_HOST:$SECRETS_PORT"
+TOTAL="${1:-20000}"
+CONCURRENCY="${2:-32}"
+KEY_COUNT=20
+WORK_DIR=$(mktemp -d)
+
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+# Helper functions
+log_info() {
+    echo -e "${BLUE}[INFO]${NC} $1"
+}
+
+log_success() {
+    echo -e "${GREEN}[SUCCESS]${NC} $1"
+}
+
+log_error() {
+    echo -e "${RED}[ERROR]${NC} $1"
+}
+
+log_step() {
+    echo -e "${YELLOW}[STEP]${NC} $1"
+}
+
+check_service() {
+    log_step "Checking secrets-service at $SECRETS_URL..."
+    if ! curl -s -o /dev/null "$SECRETS_URL/actuator/health"; then
+        log_error "secrets-service is not reachable on $SECRETS_URL"
+        log_info "Start it with: make infra-up && make run-secrets"
+        exit 1
+    fi
+    log_success "secrets-service is accessible"
+}
+
+create_keys() {
+    log_step "Creating $KEY_COUNT API keys..."
+    : > "$WORK_DIR/valid"
+    : > "$WORK_DIR/unknown"
+    for i in $(seq 1 "$KEY_COUNT"); do
+        curl -s -X POST "$SECRETS_URL/api/keys" \
+            -H "Content-Type: application/json" \
+            -d "{\"name\": \"bench-key-index-$i\"}" \
+            | grep -o '"apiKey":"[^"]*"' | cut -d'"' -f4 >> "$WORK_DIR/valid"
+    done
+    # Unknown keys are all distinct, like a scanner trying random keys
+    for i in $(seq 1 "$TOTAL"); do
+        echo "pk_unknown_bench_key_${RANDOM}_${i}"
+    done > "$WORK_DIR/unknown"
+    log_success "Created $KEY_COUNT keys"
+}
+
+find_secrets_pid() {
+    for pid in $(pgrep -x java); do
+        if tr '\0' ' ' < "/proc/$pid/cmdline" | grep -qE 'SecretsServiceApplication|secrets-service-[0-9.]+(-SNAPSHOT)?\.jar'; then
+            echo "$pid"
+            return
+        fi
+    done
+}
+
+# Bytes allocated by the service so far. A GC first, since the counter only advances when one runs.
+allocated_bytes() {
+    if [ -z "$SECRETS_PID" ]; then
+        echo 0
+        return
+    fi
+    jcmd "$SECRETS_PID" GC.run > /dev/null 2>&1 || true
+    curl -s "$SECRETS_URL/actuator/metrics/jvm.gc.memory.allocated" \
+        | grep -o '"value":[0-9.E+]*' | head -n 1 | cut -d: -f2 | awk '{printf "%d", $1} END {if (NR == 0) print 0}'
+}
+
+lookups() {
+    curl -s "$SECRETS_URL/actuator/metrics/secrets.apikey.index.lookups?tag=result:$1" \
+        | grep -o '"value":[0-9.E+]*' | head -n 1 | cut -d: -f2 | awk '{printf "%d", $1} END {if (NR == 0) print 0}'
+}
+
+index_size() {
+    curl -s "$SECRETS_URL/actuator/metrics/secrets.apikey.index.size" \
+        | grep -o '"value":[0-9.E+]*' | head -n 1 | cut -d: -f2 | awk '{printf "%d", $1} END {if (NR == 0) print 0}'
+}
+
+# Keep-alive client so the numbers measure the service rather than process start-up.
+# Prints: elapsed-ms ok unauthorized errors
+write_client() {
+    cat > "$WORK_DIR/client.py" <<'EOF'
+import http.client, sys, threading, time
+
+host, port, keys_file, total, concurrency = sys.argv[1], int(sys.argv[2]), sys.argv[3], int(sys.argv[4]), int(sys.argv[5])
+keys = [line.strip() for line in open(keys_file) if line.strip()]
+counts = {"ok": 0, "unauthorized": 0, "errors": 0}
+lock = threading.Lock()
+next_index = [0]
+
+def worker():
+    conn = http.client.HTTPConnection(host, port)
+    while True:
+        with lock:
+            i = next_index[0]
+            if i >= total:
+                break
+            next_index[0] += 1
+        body = '{"apiKey":"%s"}' % keys[i % len(keys)]
+        try:
+            conn.request("POST", "/internal/verify", body, {"Content-Type": "application/json"})
+            status = conn.getresponse()
+            status.read()
+            result = "ok" if status.status == 200 else "unauthorized" if status.status == 401 else "errors"
+        except Exception:
+            conn.close()
+            conn = http.client.HTTPConnection(host, port)
+            result = "errors"
+        with lock:
+            counts[result] += 1
+
+start = time.time()
+threads = [threading.Thread(target=worker) for _ in range(concurrency)]
+for t in threads:
+    t.start()
+for t in threads:
+    t.join()
+print(int((time.time() - start) * 1000), counts["ok"], counts["unauthorized"], counts["errors"])
+EOF
+}
+
+run() {
+    local label=$1
+    local keys=$2
+    local rejected_before hits_before misses_before allocated_before allocated
+    rejected_before=$(lookups bloom_rejected)
+    hits_before=$(lookups hit)
+    misses_before=$(lookups miss)
+    allocated_before=$(allocated_bytes)
+
+    read -r ELAPSED OK UNAUTHORIZED ERRORS < <(python3 "$WORK_DIR/client.py" \
+        "$SECRETS_HOST" "$SECRETS_PORT" "$keys" "$TOTAL" "$CONCURRENCY")
+    allocated=$(( $(allocated_bytes) - allocated_before ))
+
+    local rate=$((TOTAL * 1000 / (ELAPSED > 0 ? ELAPSED : 1)))
+    printf "  %-10s %7d ms  %7d verifications/s  (%d ok, %d 401, %d errors)\n" \
+        "$label" "$ELAPSED" "$rate" "$OK" "$UNAUTHORIZED" "$ERRORS"
+    printf "  %-10s index: %d hits, %d bloom-rejected, %d fell through to Mongo\n" "" \
+        "$(( $(lookups hit) - hits_before ))" \
+        "$(( $(lookups bloom_rejected) - rejected_before ))" \
+        "$(( $(lookups miss) - misses_before ))"
+    if [ -n "$SECRETS_PID" ]; then
+        printf "  %-10s allocated: %d MB  (%d bytes/verification)\n" "" \
+            "$(( allocated / 1048576 ))" "$(( allocated / TOTAL ))"
+    fi
+}
+
+main() {
+    echo ""
+    echo "=============================================="
+    echo "  PulseOps v3.0 - Key Index Benchmark"
+    echo "=============================================="
+    echo ""
+    log_info "verifications-per-run=$TOTAL concurrency=$CONCURRENCY"
+
+    check_service
+    create_keys
+    write_client
+
+    SECRETS_PID="${SECRETS_PID:-$(find_secrets_pid)}"
+    if [ -z "$SECRETS_PID" ] || ! command -v jcmd > /dev/null; then
+        SECRETS_PID=""
+        log_info "secrets-service process or jcmd not found: allocation will not be reported"
+    fi
+
+    INDEXED=$(index_size)
+    if [ "$INDEXED" -gt 0 ]; then
+        log_info "Key index enabled ($INDEXED active keys indexed)"
+    else
+        log_info "Key index disabled or not loaded yet: every verification queries Mongo"
+    fi
+
+    log_step "Warming up..."
+    python3 "$WORK_DIR/client.py" "$SECRETS_HOST" "$SECRETS_PORT" "$WORK_DIR/valid" 500 "$CONCURRENCY" > /dev/null
+
+    log_step "Valid keys..."
+    VALID=$(run "valid" "$WORK_DIR/valid")
+
+    log_step "Unknown keys..."
+    UNKNOWN=$(run "unknown" "$WORK_DIR/unknown")
+
+    echo ""
+    log_success "Results"
+    echo "$VALID"
+    echo "$UNKNOWN"
+    echo ""
+}
+
+main "$@"
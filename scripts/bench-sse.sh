@@ -0,0 +1,230 @@
+#!/bin/bash
+
+# PulseOps v3.0 - SSE Connection Benchmark
+# Holds many concurrent /api/stream connections through a running gateway and
+# reports the gateway's memory and CPU cost per connection.
+#
+# The gateway must allow that many streams for one key, and the activity-stream
+# rate limit must not throttle the ramp-up:
+#
+#   cd gateway-service && mvn spring-boot:run -Dspring-boot.run.arguments="\
+#       --pulseops.gateway.streaming.max-streams-per-key=20000 \
+#       --pulseops.gateway.rate-limit.enabled=false"
+#
+# Usage: ./scripts/bench-sse.sh [connections] [hold-seconds]
+#   GATEWAY_PID  gateway process id (default: the java process running the gateway)
+
+set -e  # Exit on error
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+# Configuration
+GATEWAY_HOST="${GATEWAY_HOST:-127.0.0.1}"
+GATEWAY_PORT="${GATEWAY_PORT:-8080}"
+GATEWAY_URL="http://$GATEWAY_HOST:$GATEWAY_PORT"
+CONNECTIONS="${1:-10000}"
+# Long enough to span at least two 30s heartbeats
+HOLD_SECONDS="${2:-75}"
+WORK_DIR=$(mktemp -d)
+
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+# Helper functions
+log_info() {
+    echo -e "${BLUE}[INFO]${NC} $1"
+}
+
+log_success() {
+    echo -e "${GREEN}[SUCCESS]${NC} $1"
+}
+
+log_error() {
+    echo -e "${RED}[ERROR]${NC} $1"
+}
+
+log_step() {
+    echo -e "${YELLOW}[STEP]${NC} $1"
+}
+
+find_gateway_pid() {
+    for pid in $(pgrep -x java); do
+        if tr '\0' ' ' < "/proc/$pid/cmdline" | grep -qE 'GatewayServiceApplication|gateway-service-[0-9.]+\.jar'; then
+            echo "$pid"
+            return
+        fi
+    done
+}
+
+check_gateway() {
+    log_step "Checking gateway at $GATEWAY_URL..."
+    if ! curl -s -o /dev/null "$GATEWAY_URL/actuator/health"; then
+        log_error "Gateway is not reachable on $GATEWAY_URL"
+        log_info "Start it with: make infra-up && make run-gateway (see the header of this script for flags)"
+        exit 1
+    fi
+    GATEWAY_PID="${GATEWAY_PID:-$(find_gateway_pid)}"
+    if [ -z "$GATEWAY_PID" ] || [ ! -d "/proc/$GATEWAY_PID" ]; then
+        log_error "Could not find the gateway process; set GATEWAY_PID"
+        exit 1
+    fi
+    log_success "Gateway is accessible (pid $GATEWAY_PID)"
+}
+
+create_key() {
+    log_step "Creating API key..."
+    API_KEY=$(curl -s -X POST "$GATEWAY_URL/api/keys" \
+        -H "Content-Type: application/json" \
+        -d '{"name": "bench-sse"}' \
+        | grep -o '"apiKey":"[^"]*"' | cut -d'"' -f4)
+    if [ -z "$API_KEY" ]; then
+        log_error "Failed to create API key"
+        exit 1
+    fi
+    log_success "Created API key"
+}
+
+rss_kb() {
+    awk '/^VmRSS:/ {print $2}' "/proc/$GATEWAY_PID/status"
+}
+
+# utime + stime of the gateway process, in clock ticks
+cpu_ticks() {
+    awk '{print $14 + $15}' "/proc/$GATEWAY_PID/stat"
+}
+
+heap_bytes() {
+    # A full GC first, when jcmd is available, so the heap figure reflects live objects
+    if command -v jcmd > /dev/null; then
+        jcmd "$GATEWAY_PID" GC.run > /dev/null 2>&1 || true
+    fi
+    curl -s "$GATEWAY_URL/actuator/metrics/jvm.memory.used?tag=area:heap" \
+        | grep -o '"value":[0-9.E+]*' | head -n 1 | cut -d: -f2 | awk '{printf "%d", $1}'
+}
+
+active_streams() {
+    curl -s "$GATEWAY_URL/actuator/metrics/gateway.streams.active" \
+        | grep -o '"value":[0-9.E+]*' | head -n 1 | cut -d: -f2 | awk '{printf "%d", $1}'
+}
+
+# Opens the connections in waves, writes "ready" once every attempt has resolved,
+# holds them, then prints the client-side totals. A stream only counts as open once
+# its headers arrive, which the gateway sends with the first event or heartbeat.
+write_client() {
+    cat > "$WORK_DIR/client.py" <<'EOF'
+import asyncio, sys
+
+host, port, api_key, total, hold, ready_file = sys.argv[1], int(sys.argv[2]), sys.argv[3], int(sys.argv[4]), int(sys.argv[5]), sys.argv[6]
+stats = {"open": 0, "failed": 0, "closed_early": 0, "heartbeats": 0}
+
+async def stream():
+    try:
+        reader, writer = await asyncio.open_connection(host, port)
+        writer.write((f"GET /api/stream HTTP/1.1\r\nHost: {host}\r\n"
+                      f"Accept: text/event-stream\r\nX-API-Key: {api_key}\r\n\r\n").encode())
+        await writer.drain()
+        status = await reader.readline()
+        if b" 200 " not in status:
+            stats["failed"] += 1
+            writer.close()
+            return
+        stats["open"] += 1
+        while True:
+            data = await reader.read(4096)
+            if not data:
+                stats["closed_early"] += 1
+                return
+            stats["heartbeats"] += data.count(b"heartbeat")
+    except asyncio.CancelledError:
+        raise
+    except Exception:
+        stats["failed"] += 1
+
+async def main():
+    tasks = []
+    for start in range(0, total, 500):
+        tasks += [asyncio.create_task(stream()) for _ in range(min(500, total - start))]
+        await asyncio.sleep(0.2)
+    for _ in range(45):
+        if stats["open"] + stats["failed"] >= total:
+            break
+        await asyncio.sleep(1)
+    open(ready_file, "w").write(str(stats["open"]))
+    await asyncio.sleep(hold)
+    for task in tasks:
+        task.cancel()
+    await asyncio.gather(*tasks, return_exceptions=True)
+    print(f"{stats['open']} {stats['failed']} {stats['closed_early']} {stats['heartbeats']}")
+
+asyncio.run(main())
+EOF
+}
+
+main() {
+    echo ""
+    echo "=============================================="
+    echo "  PulseOps v3.0 - SSE Connection Benchmark"
+    echo "=============================================="
+    echo ""
+    log_info "connections=$CONNECTIONS hold=${HOLD_SECONDS}s"
+
+    ulimit -n $((CONNECTIONS + 1024)) 2>/dev/null || log_info "Could not raise the open file limit; it may cap connections"
+
+    check_gateway
+    create_key
+    write_client
+
+    # Verify the key once so the ramp-up doesn't start with thousands of cold verifications
+    log_step "Warming up..."
+    curl -s -o /dev/null -m 2 -H "X-API-Key: $API_KEY" "$GATEWAY_URL/api/stream" || true
+
+    log_step "Measuring idle baseline..."
+    RSS_BEFORE=$(rss_kb)
+    HEAP_BEFORE=$(heap_bytes)
+
+    log_step "Opening $CONNECTIONS streams..."
+    python3 "$WORK_DIR/client.py" "$GATEWAY_HOST" "$GATEWAY_PORT" "$API_KEY" "$CONNECTIONS" "$HOLD_SECONDS" \
+        "$WORK_DIR/ready" > "$WORK_DIR/client.out" &
+    CLIENT_PID=$!
+    while [ ! -f "$WORK_DIR/ready" ]; do
+        if ! kill -0 "$CLIENT_PID" 2> /dev/null; then
+            log_error "Client exited before opening its connections"
+            exit 1
+        fi
+        sleep 1
+    done
+    OPENED=$(cat "$WORK_DIR/ready")
+    log_success "$OPENED streams open (gateway reports $(active_streams) active)"
+
+    log_step "Holding streams for ${HOLD_SECONDS}s..."
+    TICKS_START=$(cpu_ticks)
+    sleep $((HOLD_SECONDS > 5 ? HOLD_SECONDS - 5 : HOLD_SECONDS))
+    TICKS_END=$(cpu_ticks)
+    RSS_AFTER=$(rss_kb)
+    HEAP_AFTER=$(heap_bytes)
+    HELD_SECONDS=$((HOLD_SECONDS > 5 ? HOLD_SECONDS - 5 : HOLD_SECONDS))
+    wait "$CLIENT_PID"
+    read -r OPEN FAILED CLOSED_EARLY HEARTBEATS < "$WORK_DIR/client.out"
+
+    N=$((OPENED > 0 ? OPENED : 1))
+    CPU_MS=$(( (TICKS_END - TICKS_START) * 1000 / $(getconf CLK_TCK) ))
+
+    echo ""
+    log_success "Results"
+    printf "  %-28s %d opened, %d failed, %d closed by the server during the hold\n" \
+        "connections:" "$OPEN" "$FAILED" "$CLOSED_EARLY"
+    printf "  %-28s %d received across all streams\n" "heartbeats:" "$HEARTBEATS"
+    printf "  %-28s %d KB -> %d KB  (%d bytes/connection)\n" \
+        "gateway RSS:" "$RSS_BEFORE" "$RSS_AFTER" "$(( (RSS_AFTER - RSS_BEFORE) * 1024 / N ))"
+    printf "  %-28s %d MB -> %d MB  (%d bytes/connection)\n" \
+        "gateway heap (live):" "$((HEAP_BEFORE / 1048576))" "$((HEAP_AFTER / 1048576))" "$(( (HEAP_AFTER - HEAP_BEFORE) / N ))"
+    printf "  %-28s %d ms over %ds  (%d us/connection/minute)\n" \
+        "gateway CPU while holding:" "$CPU_MS" "$HELD_SECONDS" "$(( CPU_MS * 1000 * 60 / HELD_SECONDS / N ))"
+    echo ""
+}
+
+main "$@"
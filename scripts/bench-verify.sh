@@ -0,0 +1,149 @@
+#!/bin/bash
+
+# PulseOps v3.0 - API Key Verification Benchmark
+# Compares per-request (/internal/verify) and batched (/internal/verify/batch)
+# verification throughput against a running secrets-service.
+#
+# Usage: ./scripts/bench-verify.sh [total-verifications] [concurrency] [batch-size]
+
+set -e  # Exit on error
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+# Configuration
+SECRETS_URL="${SECRETS_URL:-http://localhost:8081}"
+TOTAL="${1:-2000}"
+CONCURRENCY="${2:-32}"
+BATCH_SIZE="${3:-64}"
+KEY_COUNT=20
+WORK_DIR=$(mktemp -d)
+
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+# Helper functions
+log_info() {
+    echo -e "${BLUE}[INFO]${NC} $1"
+}
+
+log_success() {
+    echo -e "${GREEN}[SUCCESS]${NC} $1"
+}
+
+log_error() {
+    echo -e "${RED}[ERROR]${NC} $1"
+}
+
+log_step() {
+    echo -e "${YELLOW}[STEP]${NC} $1"
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+check_service() {
+    log_step "Checking secrets-service at $SECRETS_URL..."
+    if ! curl -s -o /dev/null "$SECRETS_URL/actuator/health"; then
+        log_error "secrets-service is not reachable on $SECRETS_URL"
+        log_info "Start it with: make infra-up && make run-secrets"
+        exit 1
+    fi
+    log_success "secrets-service is accessible"
+}
+
+# Mix of valid and unknown keys, as seen by a gateway in front of real traffic
+create_keys() {
+    log_step "Creating $KEY_COUNT API keys..."
+    : > "$WORK_DIR/keys"
+    for i in $(seq 1 "$KEY_COUNT"); do
+        curl -s -X POST "$SECRETS_URL/api/keys" \
+            -H "Content-Type: application/json" \
+            -d "{\"name\": \"bench-verify-$i\"}" \
+            | grep -o '"apiKey":"[^"]*"' | cut -d'"' -f4 >> "$WORK_DIR/keys"
+        echo "pk_unknown_bench_key_$i" >> "$WORK_DIR/keys"
+    done
+    log_success "Created $KEY_COUNT keys (plus $KEY_COUNT unknown keys)"
+}
+
+build_workload() {
+    mapfile -t KEYS < "$WORK_DIR/keys"
+    : > "$WORK_DIR/single"
+    for i in $(seq 0 $((TOTAL - 1))); do
+        echo "{\"apiKey\":\"${KEYS[$((i % ${#KEYS[@]}))]}\"}" >> "$WORK_DIR/single"
+    done
+
+    : > "$WORK_DIR/batches"
+    local batch=""
+    local count=0
+    for i in $(seq 0 $((TOTAL - 1))); do
+        batch="$batch${batch:+,}\"${KEYS[$((i % ${#KEYS[@]}))]}\""
+        count=$((count + 1))
+        if [ "$count" -eq "$BATCH_SIZE" ]; then
+            echo "{\"apiKeys\":[$batch]}" >> "$WORK_DIR/batches"
+            batch=""
+            count=0
+        fi
+    done
+    if [ -n "$batch" ]; then
+        echo "{\"apiKeys\":[$batch]}" >> "$WORK_DIR/batches"
+    fi
+}
+
+run_requests() {
+    local path=$1
+    local file=$2
+    tr '\n' '\0' < "$file" | xargs -0 -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -X POST "$SECRETS_URL$path" \
+            -H "Content-Type: application/json" -d "{}"
+}
+
+report() {
+    local label=$1
+    local requests=$2
+    local elapsed=$3
+    local rate=$((TOTAL * 1000 / (elapsed > 0 ? elapsed : 1)))
+    printf "  %-12s %6d verifications in %6d HTTP requests: %7d ms  (%d verifications/s)\n" \
+        "$label" "$TOTAL" "$requests" "$elapsed" "$rate"
+}
+
+main() {
+    echo ""
+    echo "=============================================="
+    echo "  PulseOps v3.0 - Key Verification Benchmark"
+    echo "=============================================="
+    echo ""
+    log_info "total=$TOTAL concurrency=$CONCURRENCY batch-size=$BATCH_SIZE"
+
+    check_service
+    create_keys
+    build_workload
+
+    log_step "Warming up..."
+    head -n "$CONCURRENCY" "$WORK_DIR/single" > "$WORK_DIR/warmup"
+    run_requests /internal/verify "$WORK_DIR/warmup"
+    head -n 2 "$WORK_DIR/batches" > "$WORK_DIR/warmup"
+    run_requests /internal/verify/batch "$WORK_DIR/warmup"
+
+    log_step "Per-request verification..."
+    START=$(now_ms)
+    run_requests /internal/verify "$WORK_DIR/single"
+    SINGLE_MS=$(( $(now_ms) - START ))
+
+    log_step "Batched verification..."
+    START=$(now_ms)
+    run_requests /internal/verify/batch "$WORK_DIR/batches"
+    BATCH_MS=$(( $(now_ms) - START ))
+
+    echo ""
+    log_success "Results"
+    report "per-request" "$(wc -l < "$WORK_DIR/single")" "$SINGLE_MS"
+    report "batched" "$(wc -l < "$WORK_DIR/batches")" "$BATCH_MS"
+    echo ""
+}
+
+main "$@"
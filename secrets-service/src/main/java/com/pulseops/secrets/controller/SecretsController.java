@@ -5,12 +5,17 @@ import com.pulseops.secrets.service.ApiKeyService.ApiKeyCreationResult;
 import com.pulseops.secrets.service.ApiKeyService.ApiKeyMetadata;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.List;
 
@@ -19,8 +24,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecretsController {
 
+    private static final String AUTHENTICATED_KEY_ID_HEADER = "X-Authenticated-Key-Id";
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
     private final ApiKeyService apiKeyService;
 
+    @Value("${pulseops.secrets.admin-token:}")
+    private String adminToken;
+
     @PostMapping("/api/keys")
     public ResponseEntity<CreateKeyResponse> createApiKey(@Valid @RequestBody CreateKeyRequest request) {
         log.info("POST /api/keys - Creating API key with name: {}", request.name());
@@ -45,17 +56,56 @@ public class SecretsController {
         return ResponseEntity.ok(keys);
     }
 
+    /**
+     * Revokes a key. Allowed for the key itself (the gateway passes the id of the key that authenticated the
+     * request in {@code X-Authenticated-Key-Id}) or with the admin token, since anyone can create a key.
+     */
+    @DeleteMapping("/api/keys/{id}")
+    public ResponseEntity<ApiKeyMetadata> revokeApiKey(@PathVariable String id,
+            @RequestHeader(value = AUTHENTICATED_KEY_ID_HEADER, required = false) String callerKeyId,
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String adminToken,
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId) {
+        log.info("DELETE /api/keys/{} - Revoking API key", id);
+
+        if (!id.equals(callerKeyId) && !isAdmin(adminToken)) {
+            log.warn("Refusing to revoke API key {} for caller key {}", id, callerKeyId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return apiKeyService.revokeApiKey(id, correlationId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private boolean isAdmin(String adminToken) {
+        if (this.adminToken.isBlank() || adminToken == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(this.adminToken.getBytes(StandardCharsets.UTF_8),
+                adminToken.getBytes(StandardCharsets.UTF_8));
+    }
+
     @PostMapping("/internal/verify")
-    public ResponseEntity<Void> verifyApiKey(@Valid @RequestBody VerifyKeyRequest request) {
+    public ResponseEntity<VerifyKeyResponse> verifyApiKey(@Valid @RequestBody VerifyKeyRequest request) {
         log.info("POST /internal/verify - Validating API key");
 
-        boolean isValid = apiKeyService.validateApiKey(request.apiKey());
+        // The key id and expiry let callers (e.g. the gateway auth cache) bound how long they trust the result
+        return apiKeyService.validateApiKey(request.apiKey())
+                .map(apiKey -> ResponseEntity.ok(new VerifyKeyResponse(apiKey.getId(), apiKey.getExpiresAt())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
 
-        if (isValid) {
-            return ResponseEntity.ok().build();
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+    @PostMapping("/internal/verify/batch")
+    public ResponseEntity<List<VerifyKeyResult>> verifyApiKeys(@Valid @RequestBody VerifyKeysRequest request) {
+        log.info("POST /internal/verify/batch - Validating {} API keys", request.apiKeys().size());
+
+        List<VerifyKeyResult> results = apiKeyService.validateApiKeys(request.apiKeys()).stream()
+                .map(apiKey -> apiKey
+                        .map(key -> new VerifyKeyResult(true, key.getId(), key.getExpiresAt()))
+                        .orElseGet(() -> new VerifyKeyResult(false, null, null)))
+                .toList();
+
+        return ResponseEntity.ok(results);
     }
 
     public record CreateKeyRequest(@NotBlank String name) {
@@ -66,4 +116,13 @@ public class SecretsController {
 
     public record VerifyKeyRequest(@NotBlank String apiKey) {
     }
+
+    public record VerifyKeyResponse(String id, Instant expiresAt) {
+    }
+
+    public record VerifyKeysRequest(@NotEmpty @Size(max = 1000) List<String> apiKeys) {
+    }
+
+    public record VerifyKeyResult(boolean valid, String id, Instant expiresAt) {
+    }
 }
@@ -0,0 +1,36 @@
+package com.pulseops.secrets.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventEnvelope {
+
+    private String eventId;
+    private String type;
+    private Instant occurredAt;
+    private String producer;
+    private String correlationId;
+    private String entityId;
+    private String incidentId;
+    private Object payload;
+
+    public static EventEnvelope create(String type, String keyId, String correlationId, Object payload) {
+        return EventEnvelope.builder()
+                .eventId(java.util.UUID.randomUUID().toString())
+                .type(type)
+                .occurredAt(Instant.now())
+                .producer("secrets-service")
+                .correlationId(correlationId)
+                .entityId(keyId)
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.pulseops.secrets.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventPublisher {
+
+    private final KafkaTemplate<String, EventEnvelope> kafkaTemplate;
+
+    @Value("${pulseops.kafka.topic.domain-events:pulseops.domain-events}")
+    private String topicName;
+
+    public void publish(String type, String keyId, String correlationId, Object payload) {
+        EventEnvelope event = EventEnvelope.create(type, keyId, correlationId, payload);
+
+        log.debug("Publishing event: type={}, keyId={}, correlationId={}", type, keyId, correlationId);
+
+        kafkaTemplate.send(topicName, keyId, event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to publish event: type={}, keyId={}", type, keyId, ex);
+                    } else {
+                        log.debug("Event published successfully: type={}, keyId={}, partition={}, offset={}",
+                                type, keyId,
+                                result.getRecordMetadata().partition(),
+                                result.getRecordMetadata().offset());
+                    }
+                });
+    }
+}
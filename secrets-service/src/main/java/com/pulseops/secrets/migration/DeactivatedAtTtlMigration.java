@@ -0,0 +1,45 @@
+package com.pulseops.secrets.migration;
+
+import com.pulseops.secrets.model.ApiKey;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drops the TTL index earlier versions created on {@code api_keys.deactivatedAt}, which made Mongo delete
+ * revoked and expired keys 30 days after deactivation. Deactivated keys are kept again. A no-op once the
+ * index is gone, and safe to run from several instances at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeactivatedAtTtlMigration {
+
+    private static final String DEACTIVATED_AT = "deactivatedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        IndexOperations indexOps = mongoTemplate.indexOps(ApiKey.class);
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            boolean deactivatedAtOnly = index.getIndexFields().size() == 1
+                    && index.isIndexForFields(List.of(DEACTIVATED_AT));
+            if (deactivatedAtOnly && index.getExpireAfter().isPresent()) {
+                try {
+                    indexOps.dropIndex(index.getName());
+                    log.info("Dropped TTL index {} on api_keys.deactivatedAt", index.getName());
+                } catch (Exception e) {
+                    // Another instance got there first
+                    log.debug("TTL index {} already dropped: {}", index.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.pulseops.secrets.migration;
+
+import com.pulseops.secrets.model.ApiKey;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * One-time migration of {@code api_keys.keyHash} from the 64-char hex string it used to be stored as to
+ * the raw 32-byte binary the service now reads. Runs on startup, before the key index loads or any request
+ * is served, and is a no-op once no string hashes remain, so it is safe to leave in place and to run from
+ * several instances at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeyHashBinaryMigration {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String KEY_HASH = "keyHash";
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        Query legacyHashes = Query.query(Criteria.where(KEY_HASH).type(JsonSchemaObject.Type.stringType()));
+        legacyHashes.fields().include(KEY_HASH);
+
+        int migrated = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+        try (Stream<Document> stream = mongoTemplate.stream(legacyHashes, Document.class,
+                mongoTemplate.getCollectionName(ApiKey.class))) {
+            Iterator<Document> documents = stream.iterator();
+            while (documents.hasNext()) {
+                Document document = documents.next();
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiKey.class);
+                }
+                String hex = document.getString(KEY_HASH);
+                // Matching on the old value keeps a concurrent migration from applying the update twice
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(document.get("_id")).and(KEY_HASH).is(hex)),
+                        new Update().set(KEY_HASH, new Binary(HexFormat.of().parseHex(hex))));
+                if (++pending == BATCH_SIZE) {
+                    migrated += bulk.execute().getModifiedCount();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            migrated += bulk.execute().getModifiedCount();
+        }
+
+        if (migrated > 0) {
+            log.info("Migrated {} API key hashes from hex strings to binary", migrated);
+        }
+    }
+}
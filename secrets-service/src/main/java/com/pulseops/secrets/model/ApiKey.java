@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -14,6 +16,11 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "api_keys")
+// Only active keys are ever swept for expiry, so the index skips the deactivated ones
+@CompoundIndex(name = "active_expiresAt", def = "{'active': 1, 'expiresAt': 1}", partialFilter = "{'active': true}")
+// Serves the key index sync. A different key pattern from the TTL index older versions created on deactivatedAt,
+// so both can exist until DeactivatedAtTtlMigration drops that one
+@CompoundIndex(name = "deactivatedAt_active", def = "{'deactivatedAt': 1, 'active': 1}")
 public class ApiKey {
 
     @Id
@@ -21,8 +28,12 @@ public class ApiKey {
 
     private String name;
 
-    private String keyHash;
+    /** Raw 32-byte SHA-256 of the plain key. */
+    @Indexed(unique = true)
+    private byte[] keyHash;
 
+    /** Indexed for the key index sync, which reads keys created since its last run. */
+    @Indexed
     private Instant createdAt;
 
     private Instant lastUsedAt;
@@ -30,4 +41,7 @@ public class ApiKey {
     private Instant expiresAt;
 
     private boolean active;
+
+    /** Set when the key is revoked or swept as expired. */
+    private Instant deactivatedAt;
 }
@@ -2,12 +2,23 @@ package com.pulseops.secrets.repository;
 
 import com.pulseops.secrets.model.ApiKey;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ApiKeyRepository extends MongoRepository<ApiKey, String> {
 
-    Optional<ApiKey> findByKeyHash(String keyHash);
+    Optional<ApiKey> findByKeyHash(byte[] keyHash);
+
+    List<ApiKey> findByKeyHashIn(Collection<byte[]> keyHashes);
+
+    List<ApiKey> findByActiveTrue();
+
+    @Query("{ '$or': [ { 'createdAt': { '$gt': ?0 } }, { 'deactivatedAt': { '$gt': ?0 } } ] }")
+    List<ApiKey> findChangedSince(Instant since);
 }
@@ -0,0 +1,81 @@
+package com.pulseops.secrets.scheduler;
+
+import com.mongodb.client.result.UpdateResult;
+import com.pulseops.secrets.messaging.EventPublisher;
+import com.pulseops.secrets.model.ApiKey;
+import com.pulseops.secrets.service.ApiKeyIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deactivates keys whose {@code expiresAt} has passed, a batch at a time, and publishes
+ * {@code apikey.expired} for each so the gateway drops them from its auth cache and session tokens.
+ * The query is served by the partial {@code {active, expiresAt}} index.
+ *
+ * <p>Replicas may sweep concurrently; the update only matches keys that are still active, and a
+ * duplicate event only repeats an idempotent eviction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpiredKeySweeper {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApiKeyIndex apiKeyIndex;
+    private final EventPublisher eventPublisher;
+
+    @Value("${pulseops.secrets.key-sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${pulseops.secrets.key-sweeper.interval-ms:60000}")
+    public void sweepExpiredKeys() {
+        log.debug("Running expired key sweep");
+
+        Instant now = Instant.now();
+        String correlationId = "key-sweeper-" + UUID.randomUUID();
+        long swept = 0;
+        List<ApiKey> expired;
+        do {
+            Query query = Query.query(Criteria.where("active").is(true).and("expiresAt").lte(now))
+                    .limit(batchSize);
+            query.fields().include("keyHash", "expiresAt");
+            expired = mongoTemplate.find(query, ApiKey.class);
+            if (expired.isEmpty()) {
+                break;
+            }
+
+            UpdateResult result = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(expired.stream().map(ApiKey::getId).toList())
+                            .and("active").is(true)),
+                    new Update().set("active", false).set("deactivatedAt", now),
+                    ApiKey.class);
+            swept += result.getModifiedCount();
+
+            for (ApiKey apiKey : expired) {
+                apiKeyIndex.remove(apiKey);
+                eventPublisher.publish("apikey.expired", apiKey.getId(), correlationId,
+                        Map.of(
+                                "id", apiKey.getId(),
+                                "expiresAt", apiKey.getExpiresAt(),
+                                "deactivatedAt", now
+                        ));
+            }
+        } while (expired.size() == batchSize);
+
+        if (swept > 0) {
+            log.info("Deactivated {} expired API keys", swept);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.pulseops.secrets.service;
+
+import com.pulseops.secrets.model.ApiKey;
+import com.pulseops.secrets.repository.ApiKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory index of active API keys by keyHash, fronted by a Bloom filter.
+ *
+ * <p>A hash the Bloom filter has never seen is rejected without touching Mongo. A hash in the index is
+ * resolved from memory. The rare hash that passes the filter but is not indexed (a false positive, or a
+ * key deactivated since it was added) falls back to the repository lookup.
+ *
+ * <p>Keys created or deactivated by another instance reach this one through a sync every sync interval,
+ * which reads the keys whose {@code createdAt} or {@code deactivatedAt} moved past the last sync. Until then
+ * such a key is rejected, or still accepted, by this instance, so the sync interval bounds how stale it
+ * can be. Changes made on this instance apply immediately.
+ *
+ * <p>The index is rebuilt from Mongo every refresh interval, which clears the Bloom bits of deactivated and
+ * expired keys (Bloom filters can't remove entries). Until the first load completes every lookup goes to Mongo.
+ */
+@Slf4j
+@Component
+public class ApiKeyIndex {
+
+    private static final Duration CLOCK_SKEW_MARGIN = Duration.ofSeconds(5);
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+    /** Changes at or before this instant are reflected in the snapshot. Guarded by writeLock. */
+    private Instant syncedUntil;
+
+    private final Counter bloomRejected;
+    private final Counter indexHits;
+    private final Counter indexMisses;
+
+    public ApiKeyIndex(ApiKeyRepository apiKeyRepository,
+            MeterRegistry meterRegistry,
+            @Value("${pulseops.secrets.key-index.enabled:true}") boolean enabled,
+            @Value("${pulseops.secrets.key-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloomRejected = lookupCounter(meterRegistry, "bloom_rejected");
+        this.indexHits = lookupCounter(meterRegistry, "hit");
+        this.indexMisses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("secrets.apikey.index.size", this, index -> {
+                    Snapshot current = index.snapshot;
+                    return current != null ? current.keysByHash().size() : 0;
+                })
+                .description("Active API keys held in the in-memory index")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("secrets.apikey.index.lookups")
+                .description("API key index lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolves a key hash through the index, calling {@code loader} only when the index can't answer.
+     * The returned key may still be inactive or expired; callers check that as before.
+     */
+    public ApiKey find(byte[] keyHash, Function<byte[], ApiKey> loader) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return loader.apply(keyHash);
+        }
+        if (!current.bloom().mightContain(keyHash)) {
+            bloomRejected.increment();
+            return null;
+        }
+        ApiKey apiKey = current.keysByHash().get(new HashKey(keyHash));
+        if (apiKey != null) {
+            indexHits.increment();
+            return apiKey;
+        }
+        indexMisses.increment();
+        return loader.apply(keyHash);
+    }
+
+    /**
+     * Batch form of {@link #find}: hashes the index can't answer are passed to {@code loader} together.
+     * The result is in input order, with null for null hashes and unknown keys.
+     */
+    public List<ApiKey> findAll(List<byte[]> keyHashes, Function<List<byte[]>, List<ApiKey>> loader) {
+        Snapshot current = snapshot;
+        List<ApiKey> found = new ArrayList<>(keyHashes.size());
+        List<byte[]> toLoad = new ArrayList<>();
+        for (byte[] keyHash : keyHashes) {
+            ApiKey apiKey = null;
+            if (keyHash == null) {
+                // Blank key, nothing to look up
+            } else if (current == null) {
+                toLoad.add(keyHash);
+            } else if (!current.bloom().mightContain(keyHash)) {
+                bloomRejected.increment();
+            } else {
+                apiKey = current.keysByHash().get(new HashKey(keyHash));
+                if (apiKey != null) {
+                    indexHits.increment();
+                } else {
+                    indexMisses.increment();
+                    toLoad.add(keyHash);
+                }
+            }
+            found.add(apiKey);
+        }
+        if (!toLoad.isEmpty()) {
+            Map<HashKey, ApiKey> loaded = new HashMap<>();
+            loader.apply(toLoad).forEach(apiKey -> loaded.put(new HashKey(apiKey.getKeyHash()), apiKey));
+            for (int i = 0; i < found.size(); i++) {
+                if (found.get(i) == null && keyHashes.get(i) != null) {
+                    found.set(i, loaded.get(new HashKey(keyHashes.get(i))));
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Makes a newly created key resolvable immediately. */
+    public void add(ApiKey apiKey) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current != null && apiKey.isActive()) {
+                current.keysByHash().put(new HashKey(apiKey.getKeyHash()), apiKey);
+                current.bloom().add(apiKey.getKeyHash());
+            }
+        }
+    }
+
+    /** Stops resolving a deactivated key from memory; its Bloom bits are cleared on the next refresh. */
+    public void remove(ApiKey apiKey) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current != null) {
+                current.keysByHash().remove(new HashKey(apiKey.getKeyHash()));
+            }
+        }
+    }
+
+    /**
+     * Applies keys created or deactivated since the last sync, including those written by other instances.
+     */
+    @Scheduled(fixedDelayString = "${pulseops.secrets.key-index.sync-interval-ms:1000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            Instant now = Instant.now();
+            List<ApiKey> changed;
+            try {
+                // Re-reads a few seconds of changes so writes stamped by a lagging clock aren't skipped
+                changed = apiKeyRepository.findChangedSince(syncedUntil.minus(CLOCK_SKEW_MARGIN));
+            } catch (Exception e) {
+                log.warn("Failed to sync API key index, retrying next interval: {}", e.getMessage());
+                return;
+            }
+            for (ApiKey apiKey : changed) {
+                HashKey hashKey = new HashKey(apiKey.getKeyHash());
+                if (apiKey.isActive() && (apiKey.getExpiresAt() == null || apiKey.getExpiresAt().isAfter(now))) {
+                    current.keysByHash().put(hashKey, apiKey);
+                    current.bloom().add(apiKey.getKeyHash());
+                } else {
+                    current.keysByHash().remove(hashKey);
+                }
+            }
+            syncedUntil = now;
+            if (!changed.isEmpty()) {
+                log.debug("API key index synced {} changed keys", changed.size());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index from Mongo. Runs at startup and then every refresh interval.
+     */
+    @Scheduled(fixedDelayString = "${pulseops.secrets.key-index.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        // Holding the lock across the load means a key created meanwhile is either in the result or added after
+        // the swap; only key creation and deactivation wait on it, validations never do
+        synchronized (writeLock) {
+            Instant now = Instant.now();
+            List<ApiKey> activeKeys;
+            try {
+                activeKeys = apiKeyRepository.findByActiveTrue();
+            } catch (Exception e) {
+                log.warn("Failed to load API key index, keeping the previous one: {}", e.getMessage());
+                return;
+            }
+
+            Map<HashKey, ApiKey> keysByHash = new ConcurrentHashMap<>();
+            for (ApiKey apiKey : activeKeys) {
+                if (apiKey.getExpiresAt() == null || apiKey.getExpiresAt().isAfter(now)) {
+                    keysByHash.put(new HashKey(apiKey.getKeyHash()), apiKey);
+                }
+            }
+            // Headroom so keys created before the next refresh don't push up the false-positive rate
+            KeyHashBloomFilter bloom = new KeyHashBloomFilter(Math.max(1024, keysByHash.size() * 2), falsePositiveRate);
+            keysByHash.keySet().forEach(hashKey -> bloom.add(hashKey.bytes()));
+            snapshot = new Snapshot(keysByHash, bloom);
+            syncedUntil = now;
+        }
+        log.debug("API key index refreshed with {} active keys", snapshot.keysByHash().size());
+    }
+
+    private record Snapshot(Map<HashKey, ApiKey> keysByHash, KeyHashBloomFilter bloom) {
+    }
+
+    /** Map key over the raw hash bytes; the hash is uniform, so its first bytes make a good hashCode. */
+    private record HashKey(byte[] bytes) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof HashKey hashKey && Arrays.equals(bytes, hashKey.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+        }
+    }
+}
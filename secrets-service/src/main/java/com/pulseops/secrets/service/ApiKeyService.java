@@ -1,9 +1,15 @@
 package com.pulseops.secrets.service;
 
+import com.pulseops.secrets.messaging.EventPublisher;
 import com.pulseops.secrets.model.ApiKey;
 import com.pulseops.secrets.repository.ApiKeyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
@@ -12,8 +18,10 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -26,15 +34,31 @@ public class ApiKeyService {
     private static final int KEY_BYTES_LENGTH = 32;
     private static final long DEFAULT_EXPIRY_DAYS = 90;
     private static final String HASH_ALGORITHM = "SHA-256";
+    /** Generated keys are 46 chars; anything longer than the buffer takes the allocating path. */
+    private static final int KEY_BUFFER_LENGTH = 128;
+
+    // MessageDigest isn't thread-safe and getInstance walks the provider list, so each thread keeps its own
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash API key", e);
+        }
+    });
+    private static final ThreadLocal<byte[]> KEY_BUFFER = ThreadLocal.withInitial(() -> new byte[KEY_BUFFER_LENGTH]);
 
     private final ApiKeyRepository apiKeyRepository;
+    private final LastUsedTracker lastUsedTracker;
+    private final ApiKeyIndex apiKeyIndex;
+    private final MongoTemplate mongoTemplate;
+    private final EventPublisher eventPublisher;
     private final SecureRandom secureRandom = new SecureRandom();
 
     public ApiKeyCreationResult createApiKey(String name) {
         log.info("Creating new API key with name: {}", name);
 
         String plainKey = generatePlainApiKey();
-        String keyHash = hashApiKey(plainKey);
+        byte[] keyHash = hashApiKey(plainKey);
         String keyId = generateKeyId();
 
         Instant now = Instant.now();
@@ -50,6 +74,7 @@ public class ApiKeyService {
                 .build();
 
         apiKeyRepository.save(apiKey);
+        apiKeyIndex.add(apiKey);
 
         log.info("API key created successfully with id: {}", keyId);
 
@@ -64,40 +89,101 @@ public class ApiKeyService {
                 .toList();
     }
 
-    public boolean validateApiKey(String plainKey) {
+    /**
+     * Deactivates a key and publishes {@code apikey.revoked} so gateways evict it immediately.
+     * Revoking a key that is already inactive returns it unchanged without a new event.
+     */
+    public Optional<ApiKeyMetadata> revokeApiKey(String id, String correlationId) {
+        log.info("Revoking API key: {}", id);
+
+        Instant now = Instant.now();
+        ApiKey revoked = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("active").is(true)),
+                new Update().set("active", false).set("deactivatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                ApiKey.class);
+
+        if (revoked == null) {
+            return apiKeyRepository.findById(id).map(this::toMetadata);
+        }
+
+        apiKeyIndex.remove(revoked);
+        eventPublisher.publish("apikey.revoked", id, correlationId,
+                Map.of(
+                        "id", id,
+                        "name", revoked.getName(),
+                        "revokedAt", now
+                ));
+
+        log.info("API key revoked: {}", id);
+        return Optional.of(toMetadata(revoked));
+    }
+
+    public Optional<ApiKey> validateApiKey(String plainKey) {
         String traceId = getTraceId();
         log.info("Validating API key, traceId: {}", traceId);
 
         if (plainKey == null || plainKey.isBlank()) {
             log.warn("API key validation failed: empty key provided, traceId: {}", traceId);
-            return false;
+            return Optional.empty();
         }
 
-        String keyHash = hashApiKey(plainKey);
-        Optional<ApiKey> apiKeyOpt = apiKeyRepository.findByKeyHash(keyHash);
+        byte[] keyHash = hashApiKey(plainKey);
+        Optional<ApiKey> apiKeyOpt = Optional.ofNullable(
+                apiKeyIndex.find(keyHash, hash -> apiKeyRepository.findByKeyHash(hash).orElse(null)));
 
         if (apiKeyOpt.isEmpty()) {
             log.warn("API key validation failed: key not found, traceId: {}", traceId);
-            return false;
+            return Optional.empty();
         }
 
         ApiKey apiKey = apiKeyOpt.get();
 
         if (!apiKey.isActive()) {
             log.warn("API key validation failed: key is inactive, keyId: {}, traceId: {}", apiKey.getId(), traceId);
-            return false;
+            return Optional.empty();
         }
 
         if (apiKey.getExpiresAt() != null && apiKey.getExpiresAt().isBefore(Instant.now())) {
             log.warn("API key validation failed: key has expired, keyId: {}, traceId: {}", apiKey.getId(), traceId);
-            return false;
+            return Optional.empty();
         }
 
-        apiKey.setLastUsedAt(Instant.now());
-        apiKeyRepository.save(apiKey);
+        lastUsedTracker.recordUse(apiKey, Instant.now());
 
         log.info("API key validated successfully, keyId: {}, traceId: {}", apiKey.getId(), traceId);
-        return true;
+        return Optional.of(apiKey);
+    }
+
+    /**
+     * Validates many keys with a single {@code $in} lookup on keyHash.
+     * Results are returned in the same order as the input; unknown, inactive or expired keys are empty.
+     */
+    public List<Optional<ApiKey>> validateApiKeys(List<String> plainKeys) {
+        String traceId = getTraceId();
+        log.info("Validating batch of {} API keys, traceId: {}", plainKeys.size(), traceId);
+
+        List<byte[]> keyHashes = plainKeys.stream()
+                .map(plainKey -> plainKey == null || plainKey.isBlank() ? null : hashApiKey(plainKey))
+                .toList();
+
+        List<ApiKey> apiKeys = apiKeyIndex.findAll(keyHashes, apiKeyRepository::findByKeyHashIn);
+
+        Instant now = Instant.now();
+        List<Optional<ApiKey>> results = new ArrayList<>(plainKeys.size());
+        for (ApiKey apiKey : apiKeys) {
+            if (apiKey != null && apiKey.isActive()
+                    && (apiKey.getExpiresAt() == null || !apiKey.getExpiresAt().isBefore(now))) {
+                results.add(Optional.of(apiKey));
+                lastUsedTracker.recordUse(apiKey, now);
+            } else {
+                results.add(Optional.empty());
+            }
+        }
+
+        log.info("Batch validation complete: {} of {} keys valid, traceId: {}",
+                results.stream().filter(Optional::isPresent).count(), plainKeys.size(), traceId);
+        return results;
     }
 
     private String generatePlainApiKey() {
@@ -111,22 +197,32 @@ public class ApiKeyService {
         return "KEY_" + UUID.randomUUID().toString().replace("-", "").substring(0, 20).toUpperCase();
     }
 
-    private String hashApiKey(String plainKey) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
-            byte[] hashBytes = digest.digest(plainKey.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Failed to hash API key", e);
+    /**
+     * SHA-256 of the key's UTF-8 bytes. Keys are ASCII, so they are copied into a per-thread buffer
+     * instead of allocating with {@code getBytes}; the only allocation is the 32-byte result.
+     */
+    private byte[] hashApiKey(String plainKey) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        int length = plainKey.length();
+        byte[] buffer = KEY_BUFFER.get();
+        if (length <= buffer.length && copyAscii(plainKey, buffer)) {
+            digest.update(buffer, 0, length);
+        } else {
+            digest.update(plainKey.getBytes(StandardCharsets.UTF_8));
         }
+        return digest.digest();
     }
 
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+    private static boolean copyAscii(String value, byte[] buffer) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return false;
+            }
+            buffer[i] = (byte) c;
         }
-        return sb.toString();
+        return true;
     }
 
     private ApiKeyMetadata toMetadata(ApiKey apiKey) {
@@ -0,0 +1,56 @@
+package com.pulseops.secrets.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over SHA-256 key hashes. The hash is already uniformly distributed,
+ * so the bit positions are derived from its first 128 bits by double hashing instead of
+ * hashing again. Safe for concurrent {@link #add} and {@link #mightContain}.
+ */
+class KeyHashBloomFilter {
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    KeyHashBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(expectedInsertions, 1);
+        double ln2 = Math.log(2);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitCount = (long) bits.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+    }
+
+    void add(byte[] keyHash) {
+        long h1 = (long) LONG_VIEW.get(keyHash, 0);
+        long h2 = (long) LONG_VIEW.get(keyHash, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0
+                    && !bits.compareAndSet(word, current, current | mask)) {
+                // Retry until the bit is set by us or someone else
+            }
+        }
+    }
+
+    boolean mightContain(byte[] keyHash) {
+        long h1 = (long) LONG_VIEW.get(keyHash, 0);
+        long h2 = (long) LONG_VIEW.get(keyHash, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package com.pulseops.secrets.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.pulseops.secrets.model.ApiKey;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for {@code lastUsedAt}. Validations record the use in memory and a scheduled flush
+ * writes every pending key with one unordered bulk {@code $max} update, so authentication stays a read.
+ *
+ * <p>A use is only recorded when it would move the key's known {@code lastUsedAt} forward by more than
+ * the accuracy window. Persisted values therefore lag real usage by at most accuracy + flush interval.
+ */
+@Slf4j
+@Component
+public class LastUsedTracker {
+
+    private static final String LAST_USED_AT = "lastUsedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration accuracy;
+
+    /** keyId -> latest use not yet written. */
+    private final ConcurrentHashMap<String, Instant> pending = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+    private final DistributionSummary flushSize;
+
+    public LastUsedTracker(MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${pulseops.secrets.last-used.accuracy-seconds:60}") long accuracySeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.accuracy = Duration.ofSeconds(accuracySeconds);
+        this.flushTimer = Timer.builder("secrets.apikey.last_used.flush")
+                .description("Latency of the lastUsedAt bulk flush")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("secrets.apikey.last_used.flush.size")
+                .description("Keys written per lastUsedAt flush")
+                .register(meterRegistry);
+        Gauge.builder("secrets.apikey.last_used.pending", pending, Map::size)
+                .description("Keys with a lastUsedAt update waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a use of the key at {@code usedAt}. When the use is queued it is also set on the in-memory
+     * document, which then carries the value the next flush will write. Uses within the accuracy window of
+     * that value leave the document alone, so it keeps measuring the window from what was last queued.
+     */
+    public void recordUse(ApiKey apiKey, Instant usedAt) {
+        Instant known = pending.getOrDefault(apiKey.getId(), apiKey.getLastUsedAt());
+        if (known == null || Duration.between(known, usedAt).compareTo(accuracy) > 0) {
+            pending.merge(apiKey.getId(), usedAt, (previous, next) -> next.isAfter(previous) ? next : previous);
+            apiKey.setLastUsedAt(usedAt);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pulseops.secrets.last-used.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Only remove entries that haven't moved on since they were read; newer uses stay for the next flush
+        Map<String, Instant> batch = new HashMap<>();
+        pending.forEach((keyId, usedAt) -> {
+            if (pending.remove(keyId, usedAt)) {
+                batch.put(keyId, usedAt);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiKey.class);
+        // $max keeps the write idempotent and safe against replicas flushing older values
+        batch.forEach((keyId, usedAt) -> bulk.updateOne(
+                Query.query(Criteria.where("_id").is(keyId)),
+                new Update().max(LAST_USED_AT, usedAt)));
+
+        Timer.Sample sample = Timer.start();
+        try {
+            BulkWriteResult result = bulk.execute();
+            flushSize.record(batch.size());
+            log.debug("Flushed lastUsedAt for {} keys ({} modified)", batch.size(), result.getModifiedCount());
+        } catch (Exception e) {
+            // Put the batch back so the next flush retries it
+            batch.forEach((keyId, usedAt) ->
+                    pending.merge(keyId, usedAt, (previous, next) -> next.isAfter(previous) ? next : previous));
+            log.warn("Failed to flush lastUsedAt for {} keys, will retry: {}", batch.size(), e.getMessage());
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending lastUsedAt updates before shutdown", pending.size());
+        flush();
+    }
+}